@@ -0,0 +1,43 @@
+package org.jared.commons.ui;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The touch prediction run on every move event of a drag: a move event batching four samples, then a prediction
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TouchPredictorBenchmark {
+
+    private static final int SAMPLES_PER_EVENT = 4;
+    private static final int TOUCH_SLOP = 16;
+
+    private final TouchPredictor predictor = new TouchPredictor();
+    private float x;
+    private long time;
+
+    @Benchmark
+    public float moveEvent() {
+        for (int i = 0; i < SAMPLES_PER_EVENT; i++) {
+            // A finger sweeping back and forth at about 2 pixels per millisecond
+            x = (x + 8) % 1440;
+            time += 4;
+            predictor.addSample(x, time);
+        }
+        return predictor.predict(16, TOUCH_SLOP);
+    }
+}
@@ -0,0 +1,107 @@
+package org.jared.commons.ui;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The arithmetic run by {@link WorkspaceView} on every frame of a scroll, and on every fling and layout. The inputs
+ * are drawn from realistic ranges and cycled through so that nothing is constant folded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkspaceMathBenchmark {
+
+    private static final int SIZE = 1024;
+    private static final int WIDTH = 1440;
+    private static final int SCREENS = 5;
+    private static final int SNAP_VELOCITY = 500;
+    private static final float DECELERATION = 3000f * 3.5f;
+
+    private final float[] times = new float[SIZE];
+    private final int[] scrolls = new int[SIZE];
+    private final int[] velocities = new int[SIZE];
+    private final int[] bitmapSizes = new int[SIZE];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            times[i] = random.nextFloat();
+            scrolls[i] = random.nextInt(WIDTH * (SCREENS - 1));
+            velocities[i] = random.nextInt(16000) - 8000;
+            bitmapSizes[i] = 320 + random.nextInt(4000);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public float overshoot() {
+        return WorkspaceMath.overshoot(times[next()], 1.3f);
+    }
+
+    @Benchmark
+    public float overshootSlope() {
+        return WorkspaceMath.overshootSlope(times[next()], 1.3f);
+    }
+
+    @Benchmark
+    public float wallpaperOffset() {
+        return WorkspaceMath.wallpaperOffset(bitmapSizes[next()], WIDTH, SCREENS);
+    }
+
+    @Benchmark
+    public int snapScreen() {
+        return WorkspaceMath.snapScreen(scrolls[next()], WIDTH);
+    }
+
+    @Benchmark
+    public int flingScreen() {
+        final int i = next();
+        return WorkspaceMath.flingScreen(velocities[i], SNAP_VELOCITY, scrolls[i] / WIDTH, SCREENS, scrolls[i], WIDTH);
+    }
+
+    @Benchmark
+    public int projectedFlingScreen() {
+        final int i = next();
+        return WorkspaceMath.projectedFlingScreen(velocities[i], SNAP_VELOCITY, DECELERATION, scrolls[i] / WIDTH,
+                SCREENS, scrolls[i], WIDTH);
+    }
+
+    @Benchmark
+    public int flingDuration() {
+        final int i = next();
+        return WorkspaceMath.flingDuration(scrolls[i] % WIDTH, velocities[i], 1.3f, 150, 1200);
+    }
+
+    @Benchmark
+    public float centerToFit() {
+        final int i = next();
+        return WorkspaceMath.fitSize(bitmapSizes[i], WIDTH) + WorkspaceMath.fitOffset(bitmapSizes[i], WIDTH);
+    }
+
+    @Benchmark
+    public int sampleSize() {
+        final int i = next();
+        return WorkspaceMath.sampleSize(bitmapSizes[i], bitmapSizes[(i + 1) & (SIZE - 1)], WIDTH, 2560);
+    }
+}
@@ -0,0 +1,52 @@
+package org.jared.commons.ui;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A spring animation from one screen to the next, stepped at 60 frames per second until it settles, and a single
+ * frame of it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkspaceSpringBenchmark {
+
+    private static final int WIDTH = 1440;
+    private static final int FRAME_MILLIS = 16;
+
+    private final WorkspaceSpring spring = new WorkspaceSpring();
+    private long time;
+
+    @Benchmark
+    public int settleOneScreen() {
+        spring.stop();
+        spring.start(0, WIDTH, 0, time);
+        int frames = 0;
+        while (spring.step(time += FRAME_MILLIS)) {
+            frames++;
+        }
+        return frames;
+    }
+
+    @Benchmark
+    public float stepOneFrame() {
+        if (!spring.isRunning()) {
+            spring.start(0, WIDTH, 0, time);
+        }
+        spring.step(time += FRAME_MILLIS);
+        return spring.getPosition();
+    }
+}
@@ -1,46 +1,91 @@
 package org.jared.commons.ui.example;
 
 
-import org.jared.commons.ui.R;
+import org.jared.commons.ui.GestureStats;
+import org.jared.commons.ui.GestureStatsListener;
+import org.jared.commons.ui.ScreenFactory;
 import org.jared.commons.ui.WorkspaceView;
 
 import android.app.Activity;
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.ListView;
 import android.widget.Toast;
 
+import java.io.File;
+
 public class TestActivity extends Activity {
 
   private String lv_arr[] = { "Android", "iPhone", "BlackBerry", "AndroidPeople", "Symbian", "iPad","Windows Mobile", "Sony","HTC","Motorola" };
   private String lv_arr2[] = { "Eric Taix", "eric.taix@gmail.com" };
 
+  private static final int SCREEN_COUNT = 3;
+  private static final int MENU_SCROLLING_CACHE = 1;
+
+  private WorkspaceView work;
+
   /** Called when the activity is first created. */
   @Override
   public void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
-    LayoutInflater inflater = (LayoutInflater) getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+    final LayoutInflater inflater = (LayoutInflater) getSystemService(Context.LAYOUT_INFLATER_SERVICE);
 
-    WorkspaceView work = new WorkspaceView(this, null);
+    work = new WorkspaceView(this, null);
+    if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+      // Log the draw timings of each swipe, to compare them with and without the scrolling cache
+      work.setGestureStatsListener(new GestureStatsListener() {
+        public void onGestureStats(WorkspaceView workspace, GestureStats stats) {
+          if (stats.getType() == GestureStats.GESTURE_SWIPE && stats.getDrawCount() > 0) {
+            Log.d("workspace", (workspace.isScrollingCacheEnabled() ? "With" : "Without") + " scrolling cache: " + stats.getDrawCount() + " draws, " + stats.getDroppedFrames() + " dropped, longest " + stats.getMaxFrameNanos() / 1000 + "us");
+          }
+        }
+      });
+    }
     // Car il y a toujours un petit d�calage du doigt m�me lors d'un scrolling vertical
     work.setTouchSlop(32);
     // Chargement de l'image d fond (peut �tre enlev�e)
-    Bitmap backGd = BitmapFactory.decodeResource(getResources(), R.drawable.background_black_1280x1024);
-    work.loadWallpaper(backGd);
+    work.loadWallpaper(R.drawable.background_black_1280x1024);
     
+    // Screens are created when the UI thread is idle, the current one first
+    work.setScreenFactory(new ScreenFactory() {
+      public View createScreen(int position, ViewGroup parent) {
+        return TestActivity.this.createScreen(inflater, position);
+      }
+    }, SCREEN_COUNT);
+    // Show the screens as they were left until they are created
+    work.setSnapshotDirectory(new File(getCacheDir(), "workspace"));
+
+    setContentView(work);
+  }
+
+  @Override
+  protected void onPause() {
+    super.onPause();
+    work.saveSnapshots();
+  }
+
+  /** Create the view of a screen. */
+  private View createScreen(LayoutInflater inflater, int position) {
+    if (position == 1) {
+      ListView lv2 = (ListView) inflater.inflate(R.layout.list, null, false);
+      lv2.setAdapter(new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1, lv_arr2));
+      return lv2;
+    }
+    if (position == 2) {
+      return inflater.inflate(R.layout.relative_layout, null, false);
+    }
     ListView lv1 = (ListView) inflater.inflate(R.layout.list, null, false);
     lv1.setAdapter(new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1, lv_arr));
-    ListView lv2 = (ListView) inflater.inflate(R.layout.list, null, false);
-    lv2.setAdapter(new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1, lv_arr2));
-    View v1= inflater.inflate(R.layout.relative_layout, null, false);
-    
-    
+
     // Just to test ListView listener: OnItemClick AND OnItemLongListener
     lv1.setOnItemClickListener(new AdapterView.OnItemClickListener() {
       public void onItemClick(AdapterView<?> arg0P, View arg1P, int arg2P, long arg3P) {
@@ -55,12 +100,22 @@ public class TestActivity extends Activity {
         return true;
       }
     });
-    
-    // Add views to the workspace view
-    work.addView(lv1);
-    work.addView(lv2);
-    work.addView(v1);
+    return lv1;
+  }
 
-    setContentView(work);
+  @Override
+  public boolean onCreateOptionsMenu(Menu menu) {
+    menu.add(Menu.NONE, MENU_SCROLLING_CACHE, Menu.NONE, "Scrolling cache").setCheckable(true);
+    return true;
+  }
+
+  @Override
+  public boolean onOptionsItemSelected(MenuItem item) {
+    if (item.getItemId() == MENU_SCROLLING_CACHE) {
+      work.setScrollingCacheEnabled(!work.isScrollingCacheEnabled());
+      item.setChecked(work.isScrollingCacheEnabled());
+      return true;
+    }
+    return super.onOptionsItemSelected(item);
   }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import android.graphics.Color;
+
+/**
+ * A finger catching the screens in flight stops them where they are: the abandoned destination must not become the
+ * current screen, nor end the swipe, while the finger drags
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33, shadows = CountingBitmapShadow.class)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class CatchScrollTest {
+
+    private WorkspaceHarness harness;
+    private final List<Integer> gestures = new ArrayList<Integer>();
+
+    @Before
+    public void setUp() {
+        harness = new WorkspaceHarness(5, Color.BLACK);
+        harness.getWorkspace().setGestureStatsListener(new GestureStatsListener() {
+            public void onGestureStats(WorkspaceView workspace, GestureStats stats) {
+                gestures.add(Integer.valueOf(stats.getType()));
+            }
+        });
+        harness.frame();
+    }
+
+    @Test
+    public void catchingAScrollKeepsTheScreenUnderTheFinger() {
+        runCatch(false);
+    }
+
+    @Test
+    public void catchingASpringKeepsTheScreenUnderTheFinger() {
+        runCatch(true);
+    }
+
+    private void runCatch(boolean spring) {
+        final WorkspaceView workspace = harness.getWorkspace();
+        workspace.setSpringAnimationEnabled(spring);
+        workspace.scrollToScreen(3);
+        for (int i = 0; i < 20; i++) {
+            harness.frame();
+        }
+        final int scrollX = workspace.getScrollX();
+        assertTrue(scrollX > 0 && scrollX < WorkspaceHarness.WIDTH * 3);
+        final int settled = harness.getSettledCount();
+        gestures.clear();
+
+        // Catch, then drag slowly toward the next screen
+        float x = WorkspaceHarness.WIDTH / 2f;
+        harness.down(x);
+        for (int i = 0; i < 20; i++) {
+            harness.frame();
+            x -= 4;
+            harness.move(x);
+        }
+        harness.frame();
+        assertEquals(settled, harness.getSettledCount());
+        assertEquals(WorkspaceMath.snapScreen(scrollX, WorkspaceHarness.WIDTH), workspace.getCurrentScreen());
+        // The scroll caught by the finger is reported, the swipe is still being recorded
+        assertEquals(1, gestures.size());
+        assertEquals(GestureStats.GESTURE_SCROLL, gestures.get(0).intValue());
+
+        harness.up(x);
+        harness.settle();
+        assertEquals(settled + 1, harness.getSettledCount());
+        assertEquals(workspace.getCurrentScreen() * WorkspaceHarness.WIDTH, workspace.getScrollX());
+        assertTrue(Math.abs(workspace.getCurrentScreen() - WorkspaceMath.snapScreen(scrollX,
+                WorkspaceHarness.WIDTH)) <= 1);
+    }
+}
@@ -0,0 +1,56 @@
+package org.jared.commons.ui;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowLegacyBitmap;
+
+import android.graphics.Bitmap;
+import android.graphics.ColorSpace;
+import android.graphics.Matrix;
+
+/**
+ * Counts the bitmaps created while the legacy graphics of Robolectric are used
+ */
+@Implements(Bitmap.class)
+public class CountingBitmapShadow extends ShadowLegacyBitmap {
+
+    private static int created;
+
+    /**
+     * @return The number of bitmaps created since the start of the test
+     */
+    static int getCreated() {
+        return created;
+    }
+
+    static void reset() {
+        created = 0;
+    }
+
+    @Implementation
+    protected static Bitmap createBitmap(int width, int height, Bitmap.Config config) {
+        created++;
+        return ShadowLegacyBitmap.createBitmap(width, height, config);
+    }
+
+    @Implementation
+    protected static Bitmap createBitmap(int width, int height, Bitmap.Config config, boolean hasAlpha,
+            ColorSpace colorSpace) {
+        created++;
+        return ShadowLegacyBitmap.createBitmap(width, height, config, hasAlpha, colorSpace);
+    }
+
+    @Implementation
+    protected static Bitmap createBitmap(Bitmap source, int x, int y, int width, int height, Matrix matrix,
+            boolean filter) {
+        created++;
+        return ShadowLegacyBitmap.createBitmap(source, x, y, width, height, matrix, filter);
+    }
+
+    @Implementation
+    protected static Bitmap createBitmap(int[] colors, int offset, int stride, int width, int height,
+            Bitmap.Config config) {
+        created++;
+        return ShadowLegacyBitmap.createBitmap(colors, offset, stride, width, height, config);
+    }
+}
@@ -0,0 +1,87 @@
+package org.jared.commons.ui;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * A canvas counting the draw calls made on it by a {@link WorkspaceView} and its screens
+ */
+class CountingCanvas extends Canvas {
+
+    private int drawCalls;
+
+    CountingCanvas(Bitmap bitmap) {
+        super(bitmap);
+    }
+
+    /**
+     * @return The number of draw calls since the canvas was created
+     */
+    int getDrawCalls() {
+        return drawCalls;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        drawCalls++;
+        super.drawBitmap(bitmap, left, top, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        drawCalls++;
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        drawCalls++;
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        drawCalls++;
+        super.drawBitmap(bitmap, matrix, paint);
+    }
+
+    @Override
+    public void drawColor(int color) {
+        drawCalls++;
+        super.drawColor(color);
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+        drawCalls++;
+        super.drawPaint(paint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        drawCalls++;
+        super.drawRect(left, top, right, bottom, paint);
+    }
+
+    @Override
+    public void drawRect(Rect rect, Paint paint) {
+        drawCalls++;
+        super.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        drawCalls++;
+        super.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        drawCalls++;
+        super.drawRoundRect(rect, rx, ry, paint);
+    }
+}
@@ -0,0 +1,34 @@
+package org.jared.commons.ui;
+
+/**
+ * What one gesture driven by a {@link WorkspaceHarness} cost, from the first touch event to the last frame
+ */
+class GestureReport {
+
+    final String name;
+    int frames;
+    long allocatedBytes;
+    int bitmapsCreated;
+    int drawCalls;
+    int measurePasses;
+    int layoutPasses;
+    int screensDrawn;
+
+    GestureReport(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The bytes allocated by the test thread per frame
+     */
+    long getAllocatedBytesPerFrame() {
+        return frames == 0 ? 0 : allocatedBytes / frames;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": frames=" + frames + " allocated=" + allocatedBytes + "B (" + getAllocatedBytesPerFrame()
+                + "B/frame) bitmaps=" + bitmapsCreated + " drawCalls=" + drawCalls + " measures=" + measurePasses
+                + " layouts=" + layoutPasses + " screensDrawn=" + screensDrawn;
+    }
+}
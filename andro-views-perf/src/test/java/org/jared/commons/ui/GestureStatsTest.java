@@ -0,0 +1,54 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Only the frames somebody waited for are timed: a finger resting between two moves is not a dropped frame
+ */
+public class GestureStatsTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void animationFramesAreTimedFromThePreviousFrame() {
+        final GestureStats stats = new GestureStats();
+        stats.begin(GestureStats.GESTURE_FLING, 0);
+        stats.onFrame(16 * MS, 2, true);
+        stats.onFrame(32 * MS, 2, true);
+        stats.onFrame(82 * MS, 2, false);
+        assertEquals(3, stats.getDrawCount());
+        assertEquals(50 * MS, stats.getMaxFrameNanos());
+        assertEquals(2, stats.getDroppedFrames());
+    }
+
+    @Test
+    public void idleGapsAreNotTimed() {
+        final GestureStats stats = new GestureStats();
+        stats.begin(GestureStats.GESTURE_SWIPE, 0);
+        stats.onFrame(10 * MS, 1, false);
+        // The finger rests for half a second, then moves again
+        stats.onFrameRequested(510 * MS);
+        stats.onFrame(520 * MS, 2, false);
+        // A draw nobody asked for
+        stats.onFrame(900 * MS, 2, false);
+        assertEquals(3, stats.getDrawCount());
+        assertEquals(10 * MS, stats.getMaxFrameNanos());
+        assertEquals(0, stats.getDroppedFrames());
+        assertEquals(5, stats.getScreensDrawn());
+    }
+
+    @Test
+    public void aDragMoveIsTimedFromTheScroll() {
+        final GestureStats stats = new GestureStats();
+        stats.begin(GestureStats.GESTURE_SWIPE, 0);
+        stats.onFrame(5 * MS, 1, false);
+        stats.onFrameRequested(100 * MS);
+        // Further moves before the frame do not delay its start
+        stats.onFrameRequested(108 * MS);
+        stats.onFrame(140 * MS, 1, false);
+        assertEquals(40 * MS, stats.getMaxFrameNanos());
+        assertEquals(2, stats.getDroppedFrames());
+    }
+}
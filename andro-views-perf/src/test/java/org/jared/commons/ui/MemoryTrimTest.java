@@ -0,0 +1,117 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowPausedAsyncTask;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+/**
+ * The bytes reported by trimMemory count each wallpaper once, and only when nothing holds it anymore
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class MemoryTrimTest {
+
+    private WorkspaceHarness harness;
+
+    @Before
+    public void setUp() {
+        WallpaperCache.clear();
+        ShadowPausedAsyncTask.overrideExecutor(new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        harness = new WorkspaceHarness(3, Color.BLACK);
+    }
+
+    @After
+    public void tearDown() {
+        ShadowPausedAsyncTask.reset();
+        WallpaperCache.clear();
+    }
+
+    @Test
+    public void cachedWallpaperIsCountedOnce() throws Exception {
+        harness.getWorkspace().loadWallpaper(writeWallpaper());
+        harness.frame();
+        harness.frame();
+        final int bytes = WallpaperCache.getBytes();
+        assertEquals(WorkspaceHarness.WIDTH * 2 * WorkspaceHarness.HEIGHT * 4, bytes);
+
+        // Still held by the cache, the wallpaper is not freed by the workspace
+        assertEquals(0, harness.getWorkspace().trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL));
+        assertEquals(0, harness.getWorkspace().trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+        harness.frame();
+        WallpaperCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(bytes, harness.getWorkspace().trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+    }
+
+    @Test
+    public void attachedWorkspaceTrimsOnTheApplicationCallbacks() throws Exception {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.setContentView(harness.getWorkspace());
+        harness.getWorkspace().loadWallpaper(writeWallpaper());
+        harness.frame();
+        WallpaperCache.clear();
+        assertEquals(0, harness.getWorkspace().getStats().getBytesReleased());
+
+        // Dropped by the cache, the shown wallpaper is freed by the workspace itself
+        RuntimeEnvironment.getApplication().onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertTrue(harness.getWorkspace().getStats().getBytesReleased() > 0);
+    }
+
+    @Test
+    public void cacheTrimsItselfOnTheApplicationCallbacks() throws Exception {
+        harness.getWorkspace().loadWallpaper(writeWallpaper());
+        harness.frame();
+        assertEquals(WorkspaceHarness.WIDTH * 2 * WorkspaceHarness.HEIGHT * 4, WallpaperCache.getBytes());
+
+        RuntimeEnvironment.getApplication().onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(0, WallpaperCache.getBytes());
+    }
+
+    @Test
+    public void givenBitmapIsNotCounted() {
+        // Wide enough to be drawn as given, the application keeps it
+        final Bitmap bitmap = Bitmap.createBitmap(WorkspaceHarness.WIDTH * 2, WorkspaceHarness.HEIGHT,
+                Bitmap.Config.RGB_565);
+        harness.getWorkspace().loadWallpaper(bitmap);
+        harness.frame();
+        harness.frame();
+        assertEquals(0, harness.getWorkspace().trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+    }
+
+    /**
+     * Write a wallpaper twice as wide as the workspace, which is cached as decoded
+     */
+    private static File writeWallpaper() throws IOException {
+        final File file = File.createTempFile("wallpaper", ".png");
+        file.deleteOnExit();
+        ImageIO.write(new BufferedImage(WorkspaceHarness.WIDTH * 2, WorkspaceHarness.HEIGHT,
+                BufferedImage.TYPE_INT_RGB), "png", file);
+        return file;
+    }
+}
@@ -0,0 +1,64 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.view.View;
+
+/**
+ * The thumbnail of a screen is drawn again after the screen is invalidated, whichever way the invalidation reaches the
+ * workspace
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class OverviewInvalidateTest {
+
+    @Test
+    public void descendantInvalidationRefreshesTheThumbnail() {
+        final WorkspaceHarness harness = new WorkspaceHarness(0, Color.BLACK);
+        final WorkspaceView workspace = harness.getWorkspace();
+        final CountingView[] screens = new CountingView[3];
+        for (int i = 0; i < screens.length; i++) {
+            screens[i] = new CountingView(workspace.getContext());
+            workspace.addView(screens[i]);
+        }
+        harness.layout();
+        workspace.setOverviewMode(true);
+        for (int i = 0; i < 5; i++) {
+            harness.frame();
+        }
+        final int draws = screens[2].draws;
+        assertTrue(draws > 0);
+        harness.frame();
+        assertEquals(draws, screens[2].draws);
+
+        // As a hardware accelerated invalidation does from API level 26
+        workspace.onDescendantInvalidated(screens[2], screens[2]);
+        harness.frame();
+        assertEquals(draws + 1, screens[2].draws);
+    }
+
+    private static class CountingView extends View {
+        int draws;
+
+        CountingView(Context context) {
+            super(context);
+            setBackgroundColor(Color.BLACK);
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            draws++;
+        }
+    }
+}
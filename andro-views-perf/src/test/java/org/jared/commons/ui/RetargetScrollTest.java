@@ -0,0 +1,60 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import android.graphics.Color;
+
+/**
+ * A navigation command received while the screens move re-aims the running scroll, which must keep its speed instead
+ * of slowing down or jumping
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33, shadows = CountingBitmapShadow.class)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class RetargetScrollTest {
+
+    private WorkspaceHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new WorkspaceHarness(5, Color.BLACK);
+        harness.frame();
+    }
+
+    @Test
+    public void retargetingAScrollKeepsItsSpeed() {
+        final WorkspaceView workspace = harness.getWorkspace();
+        workspace.scrollToScreen(1);
+        for (int i = 0; i < 20; i++) {
+            harness.frame();
+        }
+        final int before = workspace.getScrollX();
+        harness.frame();
+        final int speedBefore = workspace.getScrollX() - before;
+        assertTrue(speedBefore > 0);
+
+        // The scroll is re-aimed on the next frame, then runs on the new curve
+        workspace.scrollRight();
+        int last = workspace.getScrollX();
+        for (int i = 0; i < 2; i++) {
+            harness.frame();
+            final int speedAfter = workspace.getScrollX() - last;
+            last = workspace.getScrollX();
+            // The curve slows down a little within a frame
+            assertTrue("speed " + speedBefore + " then " + speedAfter,
+                    Math.abs(speedAfter - speedBefore) <= speedBefore / 5);
+        }
+
+        harness.settle();
+        assertEquals(2, workspace.getCurrentScreen());
+        assertEquals(2 * WorkspaceHarness.WIDTH, workspace.getScrollX());
+    }
+}
@@ -0,0 +1,89 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * The long click listener of the workspace reaches the screens attached or created after it was set
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33)
+public class ScreenLongClickTest implements View.OnLongClickListener {
+
+    private int longClicks;
+
+    public boolean onLongClick(View v) {
+        longClicks++;
+        return true;
+    }
+
+    @Test
+    public void adapterScreensAttachedLaterGetTheListener() {
+        final WorkspaceHarness harness = new WorkspaceHarness(0, Color.BLACK);
+        final WorkspaceView workspace = harness.getWorkspace();
+        workspace.setOnLongClickListener(this);
+        workspace.setAdapter(new WorkspaceAdapter() {
+            public int getCount() {
+                return 5;
+            }
+
+            public View createScreen(ViewGroup parent) {
+                return new View(parent.getContext());
+            }
+
+            public void bindScreen(View screen, int position) {
+            }
+
+            public void recycle(View screen, int position) {
+            }
+        });
+        harness.layout();
+        final int count = workspace.getChildCount();
+        assertTrue(count > 0);
+        for (int i = 0; i < count; i++) {
+            assertTrue(workspace.getChildAt(i).performLongClick());
+        }
+        assertEquals(count, longClicks);
+    }
+
+    @Test
+    public void factoryScreensCreatedLaterGetTheListener() {
+        final WorkspaceHarness harness = new WorkspaceHarness(0, Color.BLACK);
+        final WorkspaceView workspace = harness.getWorkspace();
+        workspace.setScreenFactory(new ScreenFactory() {
+            public View createScreen(int position, ViewGroup parent) {
+                return new View(parent.getContext());
+            }
+        }, 2);
+        workspace.setOnLongClickListener(this);
+
+        // The screens are created one at a time when the UI thread gets idle, after handling a message
+        final Handler handler = new Handler(Looper.getMainLooper());
+        for (int i = 0; i < 2; i++) {
+            handler.post(new Runnable() {
+                public void run() {
+                }
+            });
+            ShadowLooper.idleMainLooper();
+        }
+        for (int i = 0; i < 2; i++) {
+            final View screen = ((LazyScreen) workspace.getChildAt(i)).getScreen();
+            assertNotNull(screen);
+            assertTrue(screen.performLongClick());
+        }
+        assertEquals(2, longClicks);
+    }
+}
@@ -0,0 +1,60 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.graphics.Color;
+import android.view.View;
+import android.widget.FrameLayout;
+
+/**
+ * The screens are found by tag and by descendant however the tags and the hierarchy change after the screens are added
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33)
+public class ScreenLookupTest {
+
+    @Test
+    public void tagSetAfterAddingIsFound() {
+        final WorkspaceView workspace = new WorkspaceHarness(3, Color.BLACK).getWorkspace();
+        final View screen = workspace.getChildAt(1);
+        assertNull(workspace.getViewForTag("second"));
+
+        screen.setTag("second");
+        assertSame(screen, workspace.getViewForTag("second"));
+
+        screen.setTag("other");
+        assertNull(workspace.getViewForTag("second"));
+        assertSame(screen, workspace.getViewForTag("other"));
+
+        workspace.removeView(screen);
+        assertNull(workspace.getViewForTag("other"));
+    }
+
+    @Test
+    public void reparentedContainerIsFoundInItsNewScreen() {
+        final WorkspaceView workspace = new WorkspaceHarness(0, Color.BLACK).getWorkspace();
+        final FrameLayout first = new FrameLayout(workspace.getContext());
+        final FrameLayout second = new FrameLayout(workspace.getContext());
+        workspace.addView(first);
+        workspace.addView(second);
+        final FrameLayout container = new FrameLayout(workspace.getContext());
+        final View item = new View(workspace.getContext());
+        container.addView(item);
+        first.addView(container);
+        assertEquals(0, workspace.getScreenForView(item));
+
+        first.removeView(container);
+        second.addView(container);
+        assertEquals(1, workspace.getScreenForView(item));
+
+        second.removeView(container);
+        assertEquals(-1, workspace.getScreenForView(item));
+    }
+}
@@ -0,0 +1,52 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import android.graphics.Color;
+import android.view.View;
+
+/**
+ * With the scrolling cache, the current and neighbouring screens are drawn from a layer while the screens move, and
+ * only then
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class ScrollingLayerTest {
+
+    @Test
+    public void screensHaveALayerWhileSwiping() {
+        final WorkspaceHarness harness = new WorkspaceHarness(4, Color.BLACK);
+        final WorkspaceView workspace = harness.getWorkspace();
+        workspace.setScrollingCacheEnabled(true);
+        // A screen with its own layer keeps it
+        workspace.getChildAt(1).setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        harness.frame();
+        assertLayers(workspace, View.LAYER_TYPE_NONE, View.LAYER_TYPE_SOFTWARE, View.LAYER_TYPE_NONE);
+
+        float x = WorkspaceHarness.WIDTH * 0.8f;
+        harness.down(x);
+        for (int i = 0; i < 60; i++) {
+            x -= 10;
+            harness.frame();
+            harness.move(x);
+        }
+        assertLayers(workspace, View.LAYER_TYPE_HARDWARE, View.LAYER_TYPE_SOFTWARE, View.LAYER_TYPE_NONE);
+
+        harness.up(x);
+        harness.settle();
+        assertLayers(workspace, View.LAYER_TYPE_NONE, View.LAYER_TYPE_SOFTWARE, View.LAYER_TYPE_NONE);
+    }
+
+    private static void assertLayers(WorkspaceView workspace, int first, int second, int third) {
+        assertEquals(first, workspace.getChildAt(0).getLayerType());
+        assertEquals(second, workspace.getChildAt(1).getLayerType());
+        assertEquals(third, workspace.getChildAt(2).getLayerType());
+    }
+}
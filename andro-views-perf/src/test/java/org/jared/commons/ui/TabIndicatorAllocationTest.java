@@ -0,0 +1,48 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import android.graphics.Color;
+
+/**
+ * The tab indicator is drawn straight onto the workspace canvas: scrolling must not create any bitmap, and the
+ * indicator costs two draw calls per frame.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33, shadows = CountingBitmapShadow.class)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class TabIndicatorAllocationTest {
+
+    private WorkspaceHarness harness;
+
+    @Before
+    public void setUp() {
+        CountingBitmapShadow.reset();
+        // Transparent screens draw nothing, so every draw call left is the indicator's
+        harness = new WorkspaceHarness(4, Color.TRANSPARENT);
+        harness.frame();
+    }
+
+    @Test
+    public void scrollingCreatesNoBitmap() {
+        final GestureReport swipe = harness.swipe(-WorkspaceHarness.WIDTH / 2, 30);
+        final GestureReport scroll = harness.scrollToScreen(3);
+        assertEquals(swipe.toString(), 0, swipe.bitmapsCreated);
+        assertEquals(scroll.toString(), 0, scroll.bitmapsCreated);
+        assertTrue(scroll.frames > 1);
+    }
+
+    @Test
+    public void indicatorDrawsTwoCallsPerFrame() {
+        final GestureReport scroll = harness.scrollToScreen(2);
+        assertEquals(scroll.toString(), 2 * scroll.frames, scroll.drawCalls);
+    }
+}
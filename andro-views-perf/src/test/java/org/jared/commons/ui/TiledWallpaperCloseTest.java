@@ -0,0 +1,100 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowLooper;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.view.View;
+
+/**
+ * A closed tiled wallpaper, as when its workspace is detached, stops its background thread and comes back on the next
+ * draw
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class TiledWallpaperCloseTest {
+
+    private static final int WIDTH = 1024;
+    private static final int HEIGHT = 256;
+    // How long the background thread may take
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final AtomicInteger opened = new AtomicInteger();
+
+    @Test
+    public void closingStopsTheThreadUntilTheNextDraw() throws Exception {
+        final File file = File.createTempFile("wallpaper", ".png");
+        file.deleteOnExit();
+        ImageIO.write(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB), "png", file);
+        final TiledWallpaper.Source source = new TiledWallpaper.FileSource(file) {
+            @Override
+            public BitmapRegionDecoder open() throws IOException {
+                opened.incrementAndGet();
+                return super.open();
+            }
+        };
+        final TiledWallpaper wallpaper = new TiledWallpaper(source, new View(RuntimeEnvironment.getApplication()),
+                new TiledWallpaper.Callback() {
+                    public void onTiledWallpaperReady(TiledWallpaper ready) {
+                    }
+                });
+        assertFalse(isWorkerAlive());
+
+        wallpaper.setViewHeight(HEIGHT);
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (wallpaper.getWidth() == 0 && System.currentTimeMillis() < deadline) {
+            waitForWorker();
+        }
+        assertEquals(WIDTH, wallpaper.getWidth());
+        assertTrue(isWorkerAlive());
+
+        wallpaper.close();
+        while (isWorkerAlive() && System.currentTimeMillis() < deadline) {
+            waitForWorker();
+        }
+        assertFalse(isWorkerAlive());
+
+        // The next draw brings the thread and the decoder back
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH / 2, HEIGHT, Bitmap.Config.RGB_565));
+        wallpaper.draw(canvas, 0, 0, 0, WIDTH / 2, 0, WIDTH / 2);
+        while (opened.get() < 2 && System.currentTimeMillis() < deadline) {
+            waitForWorker();
+        }
+        assertEquals(2, opened.get());
+        assertTrue(isWorkerAlive());
+        wallpaper.release();
+    }
+
+    private static void waitForWorker() throws InterruptedException {
+        Thread.sleep(10);
+        ShadowLooper.idleMainLooper();
+    }
+
+    private static boolean isWorkerAlive() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("wallpaper-tiles") && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
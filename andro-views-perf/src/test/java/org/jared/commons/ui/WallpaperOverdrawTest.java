@@ -0,0 +1,66 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowPausedAsyncTask;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+/**
+ * The wallpaper is skipped while opaque screens cover the workspace down to the tab indicator, and drawn under
+ * translucent screens
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33, shadows = CountingBitmapShadow.class)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class WallpaperOverdrawTest {
+
+    @After
+    public void tearDown() {
+        ShadowPausedAsyncTask.reset();
+    }
+
+    @Test
+    public void opaqueScreensSkipTheWallpaper() {
+        final WorkspaceHarness harness = withWallpaper(new WorkspaceHarness(4, Color.BLACK));
+        final int skips = harness.getWorkspace().getStats().getWallpaperSkips();
+        final GestureReport swipe = harness.swipe(-WorkspaceHarness.WIDTH / 2, 30);
+        assertEquals(swipe.toString(), swipe.frames, harness.getWorkspace().getStats().getWallpaperSkips() - skips);
+    }
+
+    @Test
+    public void translucentScreensDrawTheWallpaper() {
+        final WorkspaceHarness harness = withWallpaper(new WorkspaceHarness(4, 0x80000000));
+        final int skips = harness.getWorkspace().getStats().getWallpaperSkips();
+        final GestureReport swipe = harness.swipe(-WorkspaceHarness.WIDTH / 2, 30);
+        assertEquals(0, harness.getWorkspace().getStats().getWallpaperSkips() - skips);
+        // The wallpaper, two screens, the indicator bar and its selected tab
+        assertTrue(swipe.toString(), swipe.drawCalls >= 4 * swipe.frames);
+    }
+
+    /**
+     * Fit a wallpaper on the test thread and draw the first frame with it
+     */
+    private static WorkspaceHarness withWallpaper(WorkspaceHarness harness) {
+        ShadowPausedAsyncTask.overrideExecutor(new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        harness.getWorkspace().loadWallpaper(
+                Bitmap.createBitmap(WorkspaceHarness.WIDTH * 2, WorkspaceHarness.HEIGHT, Bitmap.Config.RGB_565));
+        harness.frame();
+        harness.frame();
+        return harness;
+    }
+}
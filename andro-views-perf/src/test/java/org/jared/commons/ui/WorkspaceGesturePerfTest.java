@@ -0,0 +1,72 @@
+package org.jared.commons.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import android.graphics.Color;
+
+/**
+ * The performance gate of the workspace gestures: a swipe, a fling and a scroll must neither measure nor lay the
+ * workspace out, must draw at most the two screens intersecting the visible window per frame and must not create any
+ * bitmap. Each gesture prints its report.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 33, shadows = CountingBitmapShadow.class)
+@GraphicsMode(GraphicsMode.Mode.LEGACY)
+public class WorkspaceGesturePerfTest {
+
+    private WorkspaceHarness harness;
+
+    @Before
+    public void setUp() {
+        CountingBitmapShadow.reset();
+        harness = new WorkspaceHarness(5, Color.BLACK);
+        harness.frame();
+    }
+
+    @Test
+    public void slowSwipeSnapsToNextScreen() {
+        final GestureReport report = harness.swipe(-WorkspaceHarness.WIDTH * 2 / 3, 40);
+        assertEquals(1, harness.getWorkspace().getCurrentScreen());
+        assertGestureBudget(report);
+    }
+
+    @Test
+    public void flingMovesToNextScreen() {
+        final GestureReport report = harness.swipe(-WorkspaceHarness.WIDTH / 4, 4);
+        assertEquals(1, harness.getWorkspace().getCurrentScreen());
+        assertGestureBudget(report);
+    }
+
+    @Test
+    public void shortSwipeSnapsBack() {
+        harness.scrollToScreen(2);
+        final GestureReport report = harness.swipe(WorkspaceHarness.WIDTH / 5, 60);
+        assertEquals(2, harness.getWorkspace().getCurrentScreen());
+        assertGestureBudget(report);
+    }
+
+    @Test
+    public void scrollToScreen() {
+        final GestureReport report = harness.scrollToScreen(3);
+        assertEquals(3, harness.getWorkspace().getCurrentScreen());
+        assertGestureBudget(report);
+    }
+
+    private static void assertGestureBudget(GestureReport report) {
+        assertTrue(report.toString(), report.frames > 1);
+        assertEquals(report.toString(), 0, report.measurePasses);
+        assertEquals(report.toString(), 0, report.layoutPasses);
+        assertEquals(report.toString(), 0, report.bitmapsCreated);
+        assertTrue(report.toString(), report.screensDrawn <= 2 * report.frames);
+        // Two screen backgrounds, the indicator bar and its selected tab
+        assertTrue(report.toString(), report.drawCalls <= 4 * report.frames);
+    }
+}
@@ -0,0 +1,202 @@
+package org.jared.commons.ui;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Drives a {@link WorkspaceView} laid out at a phone size through synthetic touch event streams, drawing a frame every
+ * 16ms of the Robolectric clock, and measures what each gesture costs: the bytes allocated by the test thread, the
+ * bitmaps created, the canvas draw calls and the measure and layout passes.<br/>
+ * <br/>
+ * The workspace is not attached to a window, so nothing but the harness measures, lays out or draws it.
+ */
+class WorkspaceHarness implements ScreenChangeListener {
+
+    static final int WIDTH = 1440;
+    static final int HEIGHT = 2560;
+    static final int FRAME_MILLIS = 16;
+    // A settling gesture taking longer than this is stuck
+    private static final int MAX_SETTLE_FRAMES = 1000;
+
+    private final WorkspaceView workspace;
+    private final CountingCanvas canvas;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private boolean settled;
+    private int settledCount;
+    private long downTime;
+
+    /**
+     * @param screens The number of screens
+     * @param screenColor The background of the screens, opaque or not
+     */
+    WorkspaceHarness(int screens, int screenColor) {
+        workspace = new WorkspaceView(RuntimeEnvironment.getApplication(), null);
+        for (int i = 0; i < screens; i++) {
+            final View screen = new View(workspace.getContext());
+            screen.setBackgroundColor(screenColor);
+            workspace.addView(screen);
+        }
+        workspace.setScreenChangeListener(this);
+        canvas = new CountingCanvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        layout();
+    }
+
+    WorkspaceView getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Measure and lay the workspace out at the phone size
+     */
+    void layout() {
+        workspace.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        workspace.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Let one frame of time pass, then animate and draw the workspace as its parent would
+     */
+    void frame() {
+        ShadowLooper.idleMainLooper(FRAME_MILLIS, java.util.concurrent.TimeUnit.MILLISECONDS);
+        if (workspace.isLayoutRequested()) {
+            layout();
+        }
+        workspace.computeScroll();
+        workspace.draw(canvas);
+    }
+
+    /**
+     * Draw frames until the workspace comes to rest on a screen
+     *
+     * @return The number of frames drawn
+     */
+    int settle() {
+        int frames = 0;
+        while (!settled && frames < MAX_SETTLE_FRAMES) {
+            frame();
+            frames++;
+        }
+        if (frames == MAX_SETTLE_FRAMES) {
+            throw new AssertionError("The workspace did not settle, scrollX=" + workspace.getScrollX());
+        }
+        return frames;
+    }
+
+    /**
+     * Drag the screens horizontally, one move per frame, then lift the finger and let the workspace settle
+     *
+     * @param distance The distance dragged in pixels, negative to move toward the next screen
+     * @param moves The number of move events, the shorter the faster the finger
+     * @return What the gesture cost
+     */
+    GestureReport swipe(int distance, int moves) {
+        final GestureReport report = begin("swipe " + distance + "px in " + moves + " moves");
+        float x = distance < 0 ? WIDTH * 0.8f : WIDTH * 0.2f;
+        down(x);
+        for (int i = 0; i < moves; i++) {
+            x += distance / (float) moves;
+            frame();
+            report.frames++;
+            move(x);
+        }
+        frame();
+        report.frames++;
+        up(x);
+        report.frames += settle();
+        return end(report);
+    }
+
+    /**
+     * Scroll to a screen as a key press would, and let the workspace settle
+     *
+     * @param screen
+     * @return What the gesture cost
+     */
+    GestureReport scrollToScreen(int screen) {
+        final GestureReport report = begin("scroll to screen " + screen);
+        workspace.scrollToScreen(screen);
+        report.frames += settle();
+        return end(report);
+    }
+
+    public void onScreenApproaching(WorkspaceView view, int screen) {
+    }
+
+    public void onScreenTargeted(WorkspaceView view, int screen) {
+    }
+
+    public void onScreenSettled(WorkspaceView view, int screen) {
+        settled = true;
+        settledCount++;
+    }
+
+    /**
+     * @return The number of times the workspace came to rest on a screen
+     */
+    int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Put a finger down, in the middle of the height
+     *
+     * @param x
+     */
+    void down(float x) {
+        downTime = SystemClock.uptimeMillis();
+        dispatch(MotionEvent.ACTION_DOWN, x);
+    }
+
+    void move(float x) {
+        dispatch(MotionEvent.ACTION_MOVE, x);
+    }
+
+    void up(float x) {
+        dispatch(MotionEvent.ACTION_UP, x);
+    }
+
+    private void dispatch(int action, float x) {
+        final MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, HEIGHT / 2f, 0);
+        workspace.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    private GestureReport begin(String name) {
+        final GestureReport report = new GestureReport(name);
+        settled = false;
+        final WorkspaceStats stats = workspace.getStats();
+        report.allocatedBytes = -allocatedBytes();
+        report.bitmapsCreated = -CountingBitmapShadow.getCreated();
+        report.drawCalls = -canvas.getDrawCalls();
+        report.measurePasses = -stats.getMeasurePasses();
+        report.layoutPasses = -stats.getLayoutPasses();
+        report.screensDrawn = -stats.getScreensDrawn();
+        return report;
+    }
+
+    private GestureReport end(GestureReport report) {
+        final WorkspaceStats stats = workspace.getStats();
+        report.allocatedBytes += allocatedBytes();
+        report.bitmapsCreated += CountingBitmapShadow.getCreated();
+        report.drawCalls += canvas.getDrawCalls();
+        report.measurePasses += stats.getMeasurePasses();
+        report.layoutPasses += stats.getLayoutPasses();
+        report.screensDrawn += stats.getScreensDrawn();
+        System.out.println(report);
+        return report;
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,137 @@
+package org.jared.commons.ui;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import android.graphics.Bitmap;
+
+/**
+ * The bitmaps of a cache, in least recently used order, with the number of bytes they use.<br/>
+ * <br/>
+ * Subclasses decide which entries may be evicted and what happens to an evicted bitmap. Not thread safe, the owner
+ * synchronizes if needed.
+ *
+ * @param <K> The type of the keys
+ */
+class BitmapLru<K> {
+
+    private final LinkedHashMap<K, Bitmap> entries = new LinkedHashMap<K, Bitmap>(16, 0.75f, true);
+    private int bytes;
+
+    /**
+     * @param key
+     * @return The bitmap of a key, which becomes the most recently used, or null
+     */
+    Bitmap get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * @param key
+     * @return Whether a key has a bitmap, without changing the order
+     */
+    boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * @return The keys, from the least recently used
+     */
+    Set<K> keySet() {
+        return entries.keySet();
+    }
+
+    /**
+     * @return The number of bitmaps
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The number of bytes used by the bitmaps
+     */
+    int getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Add a bitmap, as the most recently used
+     *
+     * @param key
+     * @param bitmap
+     * @return The bitmap replaced, left to the caller, or null
+     */
+    Bitmap put(K key, Bitmap bitmap) {
+        final Bitmap previous = entries.put(key, bitmap);
+        if (previous != null) {
+            bytes -= previous.getByteCount();
+        }
+        bytes += bitmap.getByteCount();
+        return previous;
+    }
+
+    /**
+     * Evict the bitmap of a key
+     *
+     * @param key
+     */
+    void evict(K key) {
+        final Bitmap bitmap = entries.remove(key);
+        if (bitmap != null) {
+            bytes -= bitmap.getByteCount();
+            onEvicted(key, bitmap);
+        }
+    }
+
+    /**
+     * Evict the least recently used bitmaps which may be evicted until the others fit in a number of bytes
+     *
+     * @param maxBytes
+     * @param minSize The number of bitmaps always kept, the most recently used
+     */
+    void trimToSize(int maxBytes, int minSize) {
+        final Iterator<Map.Entry<K, Bitmap>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && entries.size() > minSize && it.hasNext()) {
+            final Map.Entry<K, Bitmap> entry = it.next();
+            if (!canEvict(entry.getKey())) {
+                continue;
+            }
+            it.remove();
+            bytes -= entry.getValue().getByteCount();
+            onEvicted(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Evict every bitmap, even those which may not be evicted by {@link #trimToSize(int, int)}
+     */
+    void evictAll() {
+        final Iterator<Map.Entry<K, Bitmap>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<K, Bitmap> entry = it.next();
+            it.remove();
+            onEvicted(entry.getKey(), entry.getValue());
+        }
+        bytes = 0;
+    }
+
+    /**
+     * @param key
+     * @return Whether the bitmap of a key may be evicted to make room, true by default
+     */
+    boolean canEvict(K key) {
+        return true;
+    }
+
+    /**
+     * Called when a bitmap has been evicted. Does nothing by default.
+     *
+     * @param key
+     * @param bitmap
+     */
+    void onEvicted(K key, Bitmap bitmap) {
+    }
+}
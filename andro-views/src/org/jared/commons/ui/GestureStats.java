@@ -0,0 +1,200 @@
+package org.jared.commons.ui;
+
+/**
+ * The draw timings of one gesture of a {@link WorkspaceView}: a swipe, the fling or snap following it, or a
+ * programmatic scroll to a screen.<br/>
+ * <br/>
+ * The stats count the draw passes of the workspace, not the frames of the display: a frame in which the workspace is
+ * not drawn is not counted, and an extra draw within a frame is. The duration of a draw pass is the time elapsed since
+ * it became pending: since the previous draw when that one requested another, as an animation does, since the scroll
+ * for a draw after a drag move, or since the start of the gesture for the first one. A draw nobody waited for, such
+ * as the first one after the finger paused, is counted but not timed, so that idle time is not reported as dropped
+ * frames.<br/>
+ * <br/>
+ * The workspace reuses the same instance for every gesture so that nothing is allocated: a
+ * {@link GestureStatsListener} which keeps the values must copy them.
+ */
+public class GestureStats {
+
+    /** The finger drags the screens */
+    public static final int GESTURE_SWIPE = 0;
+    /** The screens settle after the finger has been lifted */
+    public static final int GESTURE_FLING = 1;
+    /** The screens scroll after a call to scrollToScreen or a key press */
+    public static final int GESTURE_SCROLL = 2;
+
+    /** The duration of a frame at 60 frames per second, in nanoseconds */
+    public static final long FRAME_NANOS = 16666667L;
+
+    // The upper bounds of the frame duration buckets, in milliseconds. The last bucket has no upper bound.
+    private static final int[] BUCKET_BOUNDS_MS = { 8, 16, 24, 33, 50, 100 };
+
+    private int type = -1;
+    private long startNanos;
+    private boolean framePending;
+    // The time the next frame became pending
+    private long pendingSinceNanos;
+    private long durationNanos;
+    private int drawCount;
+    private int droppedFrames;
+    private long maxFrameNanos;
+    private int screensDrawn;
+    private int maxScreensDrawn;
+    private final int[] buckets = new int[BUCKET_BOUNDS_MS.length + 1];
+
+    /**
+     * @return The kind of gesture, one of the GESTURE_ constants
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return The duration of the whole gesture, in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return The number of draw passes of the workspace during the gesture, timed or not
+     */
+    public int getDrawCount() {
+        return drawCount;
+    }
+
+    /**
+     * @return The number of 60Hz frames missed because a draw pass came later than {@link #FRAME_NANOS}
+     */
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return The longest draw pass, in nanoseconds
+     */
+    public long getMaxFrameNanos() {
+        return maxFrameNanos;
+    }
+
+    /**
+     * @return The total number of screens drawn by the draw passes of the gesture
+     */
+    public int getScreensDrawn() {
+        return screensDrawn;
+    }
+
+    /**
+     * @return The highest number of screens drawn by a single draw pass
+     */
+    public int getMaxScreensDrawn() {
+        return maxScreensDrawn;
+    }
+
+    /**
+     * @return The number of buckets of the frame duration histogram
+     */
+    public int getBucketCount() {
+        return buckets.length;
+    }
+
+    /**
+     * @param bucket
+     * @return The upper bound of a bucket of the histogram in milliseconds, or Integer.MAX_VALUE for the last one
+     */
+    public int getBucketBoundMillis(int bucket) {
+        return bucket < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[bucket] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param bucket
+     * @return The number of timed draw passes whose duration falls in a bucket of the histogram
+     */
+    public int getBucketFrames(int bucket) {
+        return buckets[bucket];
+    }
+
+    /**
+     * @return Whether a gesture is being recorded
+     */
+    boolean isActive() {
+        return type != -1;
+    }
+
+    /**
+     * Start recording a new gesture
+     */
+    void begin(int gestureType, long now) {
+        type = gestureType;
+        startNanos = now;
+        framePending = true;
+        pendingSinceNanos = now;
+        durationNanos = 0;
+        drawCount = 0;
+        droppedFrames = 0;
+        maxFrameNanos = 0;
+        screensDrawn = 0;
+        maxScreensDrawn = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = 0;
+        }
+    }
+
+    /**
+     * Note that something has to be drawn, for a frame not requested by the previous one
+     */
+    void onFrameRequested(long now) {
+        if (!framePending) {
+            framePending = true;
+            pendingSinceNanos = now;
+        }
+    }
+
+    /**
+     * Record a draw pass of the current gesture
+     *
+     * @param now
+     * @param frameScreensDrawn
+     * @param requestsNext Whether this draw requested the next one, which is then pending from now
+     */
+    void onFrame(long now, int frameScreensDrawn, boolean requestsNext) {
+        drawCount++;
+        screensDrawn += frameScreensDrawn;
+        if (frameScreensDrawn > maxScreensDrawn) {
+            maxScreensDrawn = frameScreensDrawn;
+        }
+        final boolean timed = framePending;
+        final long frameNanos = now - pendingSinceNanos;
+        framePending = requestsNext;
+        pendingSinceNanos = now;
+        if (!timed) {
+            return;
+        }
+        if (frameNanos > maxFrameNanos) {
+            maxFrameNanos = frameNanos;
+        }
+        if (frameNanos > FRAME_NANOS) {
+            droppedFrames += (int) ((frameNanos - 1) / FRAME_NANOS);
+        }
+        final long frameMillis = frameNanos / 1000000L;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && frameMillis >= BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket]++;
+    }
+
+    /**
+     * Stop recording the current gesture
+     */
+    void end(long now) {
+        durationNanos = now - startNanos;
+    }
+
+    /**
+     * Forget the recorded gesture once it has been reported
+     */
+    void clear() {
+        type = -1;
+    }
+}
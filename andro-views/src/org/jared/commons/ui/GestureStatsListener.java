@@ -0,0 +1,19 @@
+package org.jared.commons.ui;
+
+/**
+ * Receives the draw timings of each gesture of a {@link WorkspaceView}
+ * 
+ * @see WorkspaceView#setGestureStatsListener(GestureStatsListener)
+ */
+public interface GestureStatsListener {
+
+    /**
+     * Called on the UI thread when a gesture ends. The stats instance is reused for the next gesture: copy the values
+     * to keep them.
+     * 
+     * @param workspace
+     * @param stats
+     */
+    void onGestureStats(WorkspaceView workspace, GestureStats stats);
+
+}
@@ -0,0 +1,47 @@
+package org.jared.commons.ui;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * The placeholder of a screen created by a {@link ScreenFactory}. It draws nothing until the real screen has been
+ * created and added to it, then gives it its whole size.
+ */
+class LazyScreen extends ViewGroup {
+
+    private final int position;
+
+    LazyScreen(Context context, int position) {
+        super(context);
+        this.position = position;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return The created screen or null if it is still a placeholder
+     */
+    View getScreen() {
+        return getChildCount() > 0 ? getChildAt(0) : null;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), MeasureSpec.getSize(heightMeasureSpec));
+        final View screen = getScreen();
+        if (screen != null) {
+            screen.measure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        final View screen = getScreen();
+        if (screen != null) {
+            screen.layout(0, 0, right - left, bottom - top);
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package org.jared.commons.ui;
 
+/**
+ * @deprecated Called on every layout pass. Use {@link WorkspaceLayoutListener}, which is only called when the layout
+ *             actually changed.
+ */
+@Deprecated
 public interface OnLoadListener {
 
 	void onLoad();
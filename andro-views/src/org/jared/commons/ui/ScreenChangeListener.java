@@ -0,0 +1,37 @@
+package org.jared.commons.ui;
+
+/**
+ * Notified ahead of time of the screen a {@link WorkspaceView} is moving to, so that a screen can start loading its
+ * data before it becomes visible. The methods are called on the UI thread and must return quickly.
+ * 
+ * @see WorkspaceView#setScreenChangeListener(ScreenChangeListener)
+ */
+public interface ScreenChangeListener {
+
+    /**
+     * Called when a drag starts moving toward a neighbour of the current screen. Called again only if the drag turns
+     * toward the other neighbour.
+     * 
+     * @param workspace
+     * @param screen The neighbour the drag moves toward
+     */
+    void onScreenApproaching(WorkspaceView workspace, int screen);
+
+    /**
+     * Called when a fling or a scroll commits to the screen it will settle on. This may be the current screen when a
+     * drag is released without moving far enough.
+     * 
+     * @param workspace
+     * @param screen The screen the workspace is scrolling to
+     */
+    void onScreenTargeted(WorkspaceView workspace, int screen);
+
+    /**
+     * Called when the workspace comes to rest on a screen
+     * 
+     * @param workspace
+     * @param screen The new current screen
+     */
+    void onScreenSettled(WorkspaceView workspace, int screen);
+
+}
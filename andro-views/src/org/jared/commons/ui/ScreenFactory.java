@@ -0,0 +1,25 @@
+package org.jared.commons.ui;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Creates the screens of a {@link WorkspaceView} lazily.<br/>
+ * <br/>
+ * Each screen starts as an empty placeholder and is created by the factory on the UI thread, when it is idle, once the
+ * screen gets close to the current one.
+ * 
+ * @see WorkspaceView#setScreenFactory(ScreenFactory, int)
+ */
+public interface ScreenFactory {
+
+    /**
+     * Create the view of a screen
+     * 
+     * @param position The screen index
+     * @param parent The placeholder the view will be added to
+     * @return
+     */
+    View createScreen(int position, ViewGroup parent);
+
+}
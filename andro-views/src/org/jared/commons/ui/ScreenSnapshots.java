@@ -0,0 +1,178 @@
+package org.jared.commons.ui;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.AsyncTask;
+import android.util.Log;
+import android.util.SparseArray;
+
+/**
+ * Downscaled pictures of the screens of a {@link WorkspaceView}, persisted in a directory so that the next launch can
+ * show them before the real screens are created and laid out.<br/>
+ * <br/>
+ * Snapshots are written and read on background threads. Everything else happens on the UI thread, which is the only
+ * one touching the loaded snapshots, so a released snapshot can safely be recycled.
+ */
+class ScreenSnapshots {
+
+    /**
+     * Notified on the UI thread when snapshots have been loaded
+     */
+    interface Callback {
+        void onSnapshotsLoaded(ScreenSnapshots snapshots);
+    }
+
+    // The size of a snapshot relative to the screen
+    static final float SCALE = 0.5f;
+    private static final int QUALITY = 80;
+    private static final String PREFIX = "screen-";
+    private static final String SUFFIX = ".jpg";
+
+    private final File directory;
+    private final Callback callback;
+    private final SparseArray<Bitmap> snapshots = new SparseArray<Bitmap>();
+
+    ScreenSnapshots(File directory, Callback callback) {
+        this.directory = directory;
+        this.callback = callback;
+    }
+
+    /**
+     * Read the stored snapshots of a range of screens in the background
+     *
+     * @param first
+     * @param last
+     */
+    void load(final int first, final int last) {
+        new AsyncTask<Void, Void, SparseArray<Bitmap>>() {
+            @Override
+            protected SparseArray<Bitmap> doInBackground(Void... params) {
+                final SparseArray<Bitmap> loaded = new SparseArray<Bitmap>();
+                for (int screen = first; screen <= last; screen++) {
+                    final File file = getFile(screen);
+                    if (!file.exists()) {
+                        continue;
+                    }
+                    try {
+                        final Bitmap bitmap = BitmapFactory.decodeFile(file.getAbsolutePath());
+                        if (bitmap != null) {
+                            loaded.put(screen, bitmap);
+                        }
+                    }
+                    catch (OutOfMemoryError e) {
+                        Log.w("workspace", "Not enough memory to decode a screen snapshot", e);
+                        break;
+                    }
+                }
+                return loaded;
+            }
+
+            @Override
+            protected void onPostExecute(SparseArray<Bitmap> loaded) {
+                for (int i = 0; i < loaded.size(); i++) {
+                    final int screen = loaded.keyAt(i);
+                    // A snapshot taken meanwhile is more recent
+                    if (snapshots.get(screen) == null) {
+                        snapshots.put(screen, loaded.valueAt(i));
+                    }
+                    else {
+                        loaded.valueAt(i).recycle();
+                    }
+                }
+                callback.onSnapshotsLoaded(ScreenSnapshots.this);
+            }
+        }.execute();
+    }
+
+    /**
+     * Write the snapshot of a screen in the background, then recycle it
+     *
+     * @param screen
+     * @param bitmap
+     */
+    void save(final int screen, final Bitmap bitmap) {
+        new AsyncTask<Void, Void, Void>() {
+            @Override
+            protected Void doInBackground(Void... params) {
+                directory.mkdirs();
+                // Write to a temporary file first so that a reader never sees a partial snapshot
+                final File temporary = new File(directory, PREFIX + screen + SUFFIX + ".tmp");
+                try {
+                    final OutputStream out = new FileOutputStream(temporary);
+                    try {
+                        bitmap.compress(Bitmap.CompressFormat.JPEG, QUALITY, out);
+                    }
+                    finally {
+                        out.close();
+                    }
+                    if (!temporary.renameTo(getFile(screen))) {
+                        temporary.delete();
+                    }
+                }
+                catch (IOException e) {
+                    Log.w("workspace", "Unable to write a screen snapshot", e);
+                    temporary.delete();
+                }
+                return null;
+            }
+
+            @Override
+            protected void onPostExecute(Void result) {
+                bitmap.recycle();
+            }
+        }.execute();
+    }
+
+    /**
+     * @param screen
+     * @return The loaded snapshot of a screen, or null
+     */
+    Bitmap get(int screen) {
+        return snapshots.get(screen);
+    }
+
+    /**
+     * @return Whether some snapshots are loaded
+     */
+    boolean isEmpty() {
+        return snapshots.size() == 0;
+    }
+
+    /**
+     * Drop the loaded snapshot of a screen, once the real screen is shown
+     *
+     * @param screen
+     */
+    void release(int screen) {
+        final Bitmap bitmap = snapshots.get(screen);
+        if (bitmap != null) {
+            snapshots.remove(screen);
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Drop every loaded snapshot. The stored ones are kept.
+     *
+     * @return The number of bytes released
+     */
+    int releaseAll() {
+        int bytes = 0;
+        for (int i = 0; i < snapshots.size(); i++) {
+            final Bitmap bitmap = snapshots.valueAt(i);
+            bytes += bitmap.getByteCount();
+            bitmap.recycle();
+        }
+        snapshots.clear();
+        return bytes;
+    }
+
+    private File getFile(int screen) {
+        return new File(directory, PREFIX + screen + SUFFIX);
+    }
+}
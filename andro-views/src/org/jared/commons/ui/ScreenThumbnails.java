@@ -0,0 +1,143 @@
+package org.jared.commons.ui;
+
+import java.util.HashSet;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+/**
+ * The downscaled pictures of the screens shown by the overview mode of a {@link WorkspaceView}.<br/>
+ * <br/>
+ * A thumbnail is drawn once, then only redrawn after its screen has been invalidated, into the same bitmap when its
+ * size did not change. The thumbnails are kept in a LRU bounded by a byte budget, and their size is chosen so that the
+ * thumbnails of every screen fit in the budget together. Must only be used from the UI thread.
+ */
+class ScreenThumbnails {
+
+    // The default maximum size of the thumbnails
+    static final int DEFAULT_BYTE_BUDGET = 4 * 1024 * 1024;
+    // The size of a thumbnail pixel
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final BitmapLru<Integer> thumbnails = new BitmapLru<Integer>() {
+        @Override
+        void onEvicted(Integer key, Bitmap bitmap) {
+            stale.remove(key);
+            bitmap.recycle();
+        }
+    };
+    // The screens whose thumbnail no longer matches what they show
+    private final HashSet<Integer> stale = new HashSet<Integer>();
+    private final Canvas canvas = new Canvas();
+    private int byteBudget = DEFAULT_BYTE_BUDGET;
+
+    /**
+     * Set the maximum number of bytes used by the thumbnails
+     *
+     * @param budget
+     */
+    void setByteBudget(int budget) {
+        byteBudget = budget;
+        trim();
+    }
+
+    /**
+     * @param screen
+     * @return The thumbnail of a screen, possibly stale, or null if it has never been drawn
+     */
+    Bitmap get(int screen) {
+        return thumbnails.get(Integer.valueOf(screen));
+    }
+
+    /**
+     * @param screen
+     * @return Whether the thumbnail of a screen must be drawn again
+     */
+    boolean needsRefresh(int screen) {
+        final Integer key = Integer.valueOf(screen);
+        return !thumbnails.containsKey(key) || stale.contains(key);
+    }
+
+    /**
+     * Mark the thumbnail of a screen as stale, after the screen has been invalidated
+     *
+     * @param screen
+     * @return Whether the thumbnail has just become stale
+     */
+    boolean invalidate(int screen) {
+        final Integer key = Integer.valueOf(screen);
+        return thumbnails.containsKey(key) && stale.add(key);
+    }
+
+    /**
+     * Mark every thumbnail as stale, after the screens have been changed or resized
+     */
+    void invalidateAll() {
+        stale.addAll(thumbnails.keySet());
+    }
+
+    /**
+     * Draw the thumbnail of a screen
+     *
+     * @param screen
+     * @param view The laid out view of the screen
+     * @param width The largest width of the thumbnail
+     * @param height The largest height of the thumbnail
+     * @param screenCount The number of screens sharing the byte budget
+     */
+    void refresh(int screen, View view, int width, int height, int screenCount) {
+        // Shrink the thumbnails until all of them fit in the budget, so that drawing the overview never evicts any
+        final int maxPixels = byteBudget / BYTES_PER_PIXEL / Math.max(1, screenCount);
+        if (width * height > maxPixels) {
+            final float shrink = (float) Math.sqrt(maxPixels / (float) (width * height));
+            width = (int) (width * shrink);
+            height = (int) (height * shrink);
+        }
+        if (width <= 0 || height <= 0 || view.getWidth() == 0 || view.getHeight() == 0) {
+            return;
+        }
+        final Integer key = Integer.valueOf(screen);
+        Bitmap bitmap = thumbnails.get(key);
+        if (bitmap != null && (bitmap.getWidth() != width || bitmap.getHeight() != height)) {
+            thumbnails.evict(key);
+            bitmap = null;
+        }
+        try {
+            if (bitmap == null) {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                thumbnails.put(key, bitmap);
+                trim();
+            }
+            else {
+                bitmap.eraseColor(0);
+            }
+        }
+        catch (OutOfMemoryError e) {
+            // The overview shows a placeholder instead
+            return;
+        }
+        stale.remove(key);
+        canvas.setBitmap(bitmap);
+        canvas.save();
+        canvas.scale(width / (float) view.getWidth(), height / (float) view.getHeight());
+        view.draw(canvas);
+        canvas.restore();
+    }
+
+    /**
+     * Drop every thumbnail
+     *
+     * @return The number of bytes released
+     */
+    int release() {
+        final int released = thumbnails.getBytes();
+        thumbnails.evictAll();
+        return released;
+    }
+
+    private void trim() {
+        // Evict the least recently drawn thumbnails, but always keep the last one added
+        thumbnails.trimToSize(byteBudget, 1);
+    }
+}
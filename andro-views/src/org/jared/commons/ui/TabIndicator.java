@@ -0,0 +1,95 @@
+package org.jared.commons.ui;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+/**
+ * Draws the tab indicator bar at the bottom of a {@link WorkspaceView}.<br/>
+ * <br/>
+ * The indicator is drawn straight onto the canvas given to the workspace. Its geometry and paints are allocated once
+ * and the rectangles are only recomputed when the scroll position, the number of screens or the size changes, so
+ * nothing is allocated while scrolling.
+ */
+class TabIndicator {
+
+    // The height of the indicator in percent of the workspace height
+    static final int HEIGHT_PCT = 2;
+
+    private final RectF bar = new RectF();
+    private final RectF selectedTab = new RectF();
+    private final Paint backgroundPaint;
+    private final Paint selectedTabPaint;
+
+    // The last known state, used to know if the geometry has to be recomputed
+    private int lastScrollX = -1;
+    private int lastCount = -1;
+    private int lastWidth = -1;
+    private int lastHeight = -1;
+
+    TabIndicator() {
+        selectedTabPaint = new Paint();
+        selectedTabPaint.setColor(Color.RED);
+        selectedTabPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+
+        backgroundPaint = new Paint();
+        backgroundPaint.setColor(Color.GRAY);
+        backgroundPaint.setStyle(Paint.Style.FILL);
+    }
+
+    /**
+     * Return the height of the indicator for a workspace of the given height. The screens are measured to the rest of
+     * the height, so that the indicator and the screens together cover the workspace exactly.
+     *
+     * @param height
+     * @return
+     */
+    static int getHeight(int height) {
+        return height - height * (100 - HEIGHT_PCT) / 100;
+    }
+
+    /**
+     * Recompute the geometry if the state has changed since the last call
+     *
+     * @param scrollX The current horizontal scroll of the workspace
+     * @param count The number of screens
+     * @param width The workspace width
+     * @param height The workspace height
+     */
+    void update(int scrollX, int count, int width, int height) {
+        if (scrollX == lastScrollX && count == lastCount && width == lastWidth && height == lastHeight) {
+            return;
+        }
+        lastScrollX = scrollX;
+        lastCount = count;
+        lastWidth = width;
+        lastHeight = height;
+
+        final int top = height - getHeight(height);
+        final int bottom = height;
+        bar.set(scrollX, top, scrollX + width, bottom);
+        if (count > 0) {
+            final int startPos = scrollX + scrollX / count;
+            selectedTab.set(startPos, top, startPos + width / count, bottom);
+        }
+        else {
+            selectedTab.setEmpty();
+        }
+    }
+
+    /**
+     * Draw the indicator onto the workspace canvas, using the geometry of the last {@link #update(int, int, int, int)}
+     *
+     * @param canvas
+     */
+    void draw(Canvas canvas) {
+        if (lastWidth <= 0 || lastHeight <= 0) {
+            return;
+        }
+        canvas.drawRect(bar, backgroundPaint);
+        if (lastCount > 0) {
+            canvas.drawRoundRect(selectedTab, 5, 5, selectedTabPaint);
+        }
+    }
+}
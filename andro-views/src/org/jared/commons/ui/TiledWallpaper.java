@@ -0,0 +1,445 @@
+package org.jared.commons.ui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * A wallpaper decoded by vertical tiles, for panoramas much wider than the screen.<br/>
+ * <br/>
+ * Only the tiles overlapping the visible part of the wallpaper, plus a prefetch margin on each side, are decoded as
+ * RGB_565 with a {@link BitmapRegionDecoder} on a background thread. Decoded tiles are kept in a LRU bounded by a byte
+ * budget and only the visible ones are drawn. The margin shrinks so that the wanted tiles fit in the budget, and those
+ * are never evicted. Requires API level 10.<br/>
+ * <br/>
+ * Except for the decoding itself, everything happens on the UI thread: the tile cache is only touched there, so an
+ * evicted tile can safely be recycled. The background thread and the decoder are started on demand, so that a closed
+ * wallpaper holds neither.
+ */
+class TiledWallpaper {
+
+    /**
+     * Notified on the UI thread when the size of the wallpaper is known
+     */
+    interface Callback {
+        void onTiledWallpaperReady(TiledWallpaper wallpaper);
+    }
+
+    /**
+     * Opens the region decoder, on the background thread
+     */
+    interface Source {
+        BitmapRegionDecoder open() throws IOException;
+
+        /**
+         * @return Whether {@link #open()} may be called again once the decoder has been recycled
+         */
+        boolean isReopenable();
+    }
+
+    // The width of a tile, in decoded pixels
+    static final int DEFAULT_TILE_WIDTH = 256;
+    // The size of a decoded pixel, the tiles being opaque
+    private static final int BYTES_PER_PIXEL = 2;
+    // The default maximum size of the decoded tiles
+    static final int DEFAULT_BYTE_BUDGET = 8 * 1024 * 1024;
+
+    private final Source source;
+    private final View view;
+    private final Callback callback;
+    private final Handler uiHandler;
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    // Background threads only, under the lock: the thread of a closed wallpaper may still run when a new one starts
+    private final Object decoderLock = new Object();
+    private BitmapRegionDecoder decoder;
+
+    // Accessed by the background thread
+    private volatile int sampleSize = 1;
+    // The tiles still worth decoding, anything outside is dropped by the background thread
+    private volatile int wantedFirst;
+    private volatile int wantedLast = -1;
+    // Incremented when the sampling changes, so that tiles decoded for a previous size are dropped
+    private volatile int generation;
+
+    // UI thread only
+    private int width;
+    private int height;
+    private int tileWidth = DEFAULT_TILE_WIDTH;
+    private int byteBudget = DEFAULT_BYTE_BUDGET;
+    private int viewHeight;
+    private HandlerThread thread;
+    private Handler worker;
+    private final BitmapLru<Integer> tiles = new BitmapLru<Integer>() {
+        @Override
+        boolean canEvict(Integer key) {
+            // Evicting a wanted tile would only have it decoded again on the next frame
+            final int i = key.intValue();
+            return i < wantedFirst || i > wantedLast;
+        }
+
+        @Override
+        void onEvicted(Integer key, Bitmap tile) {
+            tile.recycle();
+        }
+    };
+    private final HashSet<Integer> pending = new HashSet<Integer>();
+
+    TiledWallpaper(Source source, View view, Callback callback) {
+        this.source = source;
+        this.view = view;
+        this.callback = callback;
+        uiHandler = new Handler();
+    }
+
+    /**
+     * @return The width of the decoded wallpaper, or 0 until it is known
+     */
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the decoded wallpaper, or 0 until it is known
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Set the maximum number of bytes used by the decoded tiles
+     *
+     * @param bytes
+     */
+    void setByteBudget(int bytes) {
+        byteBudget = bytes;
+        trimTiles();
+    }
+
+    /**
+     * Set the height of the workspace. The wallpaper is sub-sampled to the biggest power of two which keeps it at least
+     * this high.
+     *
+     * @param targetHeight
+     */
+    void setViewHeight(final int targetHeight) {
+        if (targetHeight <= 0 || targetHeight == viewHeight) {
+            return;
+        }
+        viewHeight = targetHeight;
+        requestDecoder();
+    }
+
+    /**
+     * Draw the tiles intersecting the uncovered part of the visible area and request the missing tiles of the whole
+     * visible area, including the prefetch margin, so that they are ready when the screens above stop covering them
+     *
+     * @param canvas
+     * @param x The left position of the wallpaper in the canvas
+     * @param y The top position of the wallpaper in the canvas
+     * @param viewportLeft The left of the visible area in the canvas
+     * @param viewportWidth The width of the visible area
+     * @param drawLeft The left of the part of the visible area not covered by opaque screens
+     * @param drawRight The right of that part, not greater than drawLeft when everything is covered
+     */
+    void draw(Canvas canvas, float x, float y, int viewportLeft, int viewportWidth, int drawLeft, int drawRight) {
+        if (width == 0) {
+            if (worker == null && viewHeight > 0) {
+                // Closed before the decoder was open
+                requestDecoder();
+            }
+            return;
+        }
+        final int tileCount = (width + tileWidth - 1) / tileWidth;
+        final int visibleLeft = (int) (viewportLeft - x);
+        final int first = Math.max(0, (int) (drawLeft - x) / tileWidth);
+        final int last = Math.min(tileCount - 1, (int) (drawRight - x) / tileWidth);
+        // Prefetch up to half a viewport on each side, as long as the wanted tiles fit in the budget together
+        final int visibleTiles = viewportWidth / tileWidth + 2;
+        final int budgetTiles = byteBudget / Math.max(1, tileWidth * height * BYTES_PER_PIXEL);
+        final int marginTiles = Math.max(0, Math.min((viewportWidth / 2 + tileWidth - 1) / tileWidth,
+                (budgetTiles - visibleTiles) / 2));
+        wantedFirst = Math.max(0, visibleLeft / tileWidth - marginTiles);
+        wantedLast = Math.min(tileCount - 1, (visibleLeft + viewportWidth) / tileWidth + marginTiles);
+
+        for (int i = first; drawLeft < drawRight && i <= last; i++) {
+            final Bitmap tile = tiles.get(i);
+            if (tile != null) {
+                canvas.drawBitmap(tile, x + i * tileWidth, y, paint);
+            }
+        }
+        for (int i = wantedFirst; i <= wantedLast; i++) {
+            requestTile(i);
+        }
+    }
+
+    /**
+     * Release every decoded tile under memory pressure. The decoder is kept, and the visible tiles are decoded again
+     * on the next draw.
+     *
+     * @return The number of bytes released
+     */
+    int trim() {
+        final int released = tiles.getBytes();
+        // Drop the tiles being decoded as well
+        generation++;
+        wantedLast = -1;
+        clearTiles();
+        return released;
+    }
+
+    /**
+     * Release every decoded tile, the decoder if it can be opened again, and stop the background thread, as when the
+     * workspace is detached. They are all brought back by the next draw.
+     */
+    void close() {
+        trim();
+        stopWorker(source.isReopenable());
+    }
+
+    /**
+     * Stop the background thread and release every tile
+     */
+    void release() {
+        stopWorker(true);
+        clearTiles();
+    }
+
+    private Handler getWorker() {
+        if (worker == null) {
+            thread = new HandlerThread("wallpaper-tiles", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            worker = new Handler(thread.getLooper());
+        }
+        return worker;
+    }
+
+    private void stopWorker(final boolean recycleDecoder) {
+        if (worker == null) {
+            return;
+        }
+        final HandlerThread stopped = thread;
+        worker.removeCallbacksAndMessages(null);
+        worker.post(new Runnable() {
+            public void run() {
+                if (recycleDecoder) {
+                    synchronized (decoderLock) {
+                        if (decoder != null) {
+                            decoder.recycle();
+                            decoder = null;
+                        }
+                    }
+                }
+                stopped.quit();
+            }
+        });
+        thread = null;
+        worker = null;
+    }
+
+    private void requestDecoder() {
+        final int targetHeight = viewHeight;
+        getWorker().post(new Runnable() {
+            public void run() {
+                openDecoder(targetHeight);
+            }
+        });
+    }
+
+    private void requestTile(int index) {
+        final Integer key = Integer.valueOf(index);
+        if (tiles.containsKey(key) || pending.contains(key)) {
+            return;
+        }
+        pending.add(key);
+        final int tileGeneration = generation;
+        getWorker().post(new Runnable() {
+            public void run() {
+                decodeTile(key, tileGeneration);
+            }
+        });
+    }
+
+    private void clearTiles() {
+        tiles.evictAll();
+        pending.clear();
+    }
+
+    private void trimTiles() {
+        // Evict the least recently drawn tiles, but always keep the last one added
+        tiles.trimToSize(byteBudget, 1);
+    }
+
+    // ===================== BACKGROUND THREAD ======================
+
+    /**
+     * Return the decoder, opening it if needed. Must be called under the lock.
+     */
+    private BitmapRegionDecoder getDecoder() {
+        if (decoder == null) {
+            try {
+                decoder = source.open();
+            }
+            catch (IOException e) {
+                Log.w("workspace", "Unable to open the tiled wallpaper", e);
+            }
+        }
+        return decoder;
+    }
+
+    private void openDecoder(int targetHeight) {
+        final int sample;
+        final int decodedWidth;
+        final int decodedHeight;
+        synchronized (decoderLock) {
+            final BitmapRegionDecoder regionDecoder = getDecoder();
+            if (regionDecoder == null) {
+                return;
+            }
+            sample = WorkspaceMath.sampleSize(regionDecoder.getWidth(), regionDecoder.getHeight(), 1, targetHeight);
+            decodedWidth = regionDecoder.getWidth() / sample;
+            decodedHeight = regionDecoder.getHeight() / sample;
+        }
+        sampleSize = sample;
+        uiHandler.post(new Runnable() {
+            public void run() {
+                generation++;
+                clearTiles();
+                width = decodedWidth;
+                height = decodedHeight;
+                callback.onTiledWallpaperReady(TiledWallpaper.this);
+                view.invalidate();
+            }
+        });
+    }
+
+    private void decodeTile(final Integer index, final int tileGeneration) {
+        final int i = index.intValue();
+        if (tileGeneration != generation || i < wantedFirst || i > wantedLast) {
+            // Scrolled away before it was our turn
+            uiHandler.post(new Runnable() {
+                public void run() {
+                    pending.remove(index);
+                }
+            });
+            return;
+        }
+        final int sample = sampleSize;
+        final int sourceTileWidth = tileWidth * sample;
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap decoded = null;
+        synchronized (decoderLock) {
+            // Opened again after the wallpaper was closed
+            final BitmapRegionDecoder regionDecoder = getDecoder();
+            if (regionDecoder != null) {
+                final Rect tileRect = new Rect(i * sourceTileWidth, 0,
+                        Math.min(regionDecoder.getWidth(), (i + 1) * sourceTileWidth), regionDecoder.getHeight());
+                try {
+                    decoded = regionDecoder.decodeRegion(tileRect, options);
+                }
+                catch (OutOfMemoryError e) {
+                    Log.w("workspace", "Not enough memory to decode a wallpaper tile", e);
+                }
+            }
+        }
+        final Bitmap tile = decoded;
+        uiHandler.post(new Runnable() {
+            public void run() {
+                pending.remove(index);
+                if (tile == null) {
+                    return;
+                }
+                if (tileGeneration != generation) {
+                    tile.recycle();
+                    return;
+                }
+                tiles.put(index, tile);
+                trimTiles();
+                view.invalidate();
+            }
+        });
+    }
+
+    // ========================= SOURCES ==============================
+
+    /**
+     * A tiled wallpaper stored in a file
+     */
+    static class FileSource implements Source {
+        private final File file;
+
+        FileSource(File file) {
+            this.file = file;
+        }
+
+        public BitmapRegionDecoder open() throws IOException {
+            return BitmapRegionDecoder.newInstance(file.getAbsolutePath(), false);
+        }
+
+        public boolean isReopenable() {
+            return true;
+        }
+    }
+
+    /**
+     * A tiled wallpaper read from a stream, closed once the decoder is open
+     */
+    static class StreamSource implements Source {
+        private final InputStream stream;
+
+        StreamSource(InputStream stream) {
+            this.stream = stream;
+        }
+
+        public BitmapRegionDecoder open() throws IOException {
+            try {
+                return BitmapRegionDecoder.newInstance(stream, false);
+            }
+            finally {
+                stream.close();
+            }
+        }
+
+        public boolean isReopenable() {
+            // The stream is read once, so the decoder is kept
+            return false;
+        }
+    }
+
+    /**
+     * A tiled wallpaper stored as a raw or drawable resource
+     */
+    static class ResourceSource implements Source {
+        private final Resources resources;
+        private final int id;
+
+        ResourceSource(Resources resources, int id) {
+            this.resources = resources;
+            this.id = id;
+        }
+
+        public BitmapRegionDecoder open() throws IOException {
+            return new StreamSource(resources.openRawResource(id)).open();
+        }
+
+        public boolean isReopenable() {
+            return true;
+        }
+    }
+}
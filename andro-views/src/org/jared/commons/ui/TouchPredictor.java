@@ -0,0 +1,67 @@
+package org.jared.commons.ui;
+
+/**
+ * Estimates where the finger will be a few milliseconds ahead from the touch samples of a drag, including the
+ * historical samples batched into each move event.<br/>
+ * <br/>
+ * The velocity is smoothed over the successive samples so that a single noisy sample does not throw the prediction off,
+ * while the position itself is never smoothed: without a lead the prediction is the latest sample, so enabling the
+ * pipeline never adds latency. Free of any Android dependency.
+ */
+final class TouchPredictor {
+
+    // The weight of a new sample in the smoothed velocity, between 0 and 1
+    private static final float SMOOTHING = 0.5f;
+    // Samples further apart than this are not used to estimate the velocity, the finger has paused
+    private static final long MAX_SAMPLE_GAP_MS = 50;
+
+    private int samples;
+    private float lastX;
+    private long lastTime;
+    // The smoothed velocity in pixels per millisecond
+    private float velocity;
+
+    /**
+     * Forget the samples, for a new drag or a new pointer
+     */
+    void reset() {
+        samples = 0;
+        velocity = 0;
+    }
+
+    /**
+     * Add a sample, in chronological order
+     *
+     * @param x
+     * @param time The time of the sample in milliseconds
+     */
+    void addSample(float x, long time) {
+        if (samples > 0) {
+            final long dt = time - lastTime;
+            if (dt > MAX_SAMPLE_GAP_MS) {
+                velocity = 0;
+            }
+            else if (dt > 0) {
+                velocity += SMOOTHING * ((x - lastX) / dt - velocity);
+            }
+        }
+        lastX = x;
+        lastTime = time;
+        samples++;
+    }
+
+    /**
+     * Return the expected position of the finger
+     *
+     * @param leadMillis How far ahead of the latest sample to predict, 0 for the latest sample itself
+     * @param maxDistance The largest distance the prediction may move away from the latest sample
+     * @return
+     */
+    float predict(int leadMillis, float maxDistance) {
+        if (samples < 2 || leadMillis <= 0) {
+            return lastX;
+        }
+        final float lead = velocity * leadMillis;
+        return lastX + Math.max(-maxDistance, Math.min(lead, maxDistance));
+    }
+}
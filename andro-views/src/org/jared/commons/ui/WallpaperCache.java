@@ -0,0 +1,145 @@
+package org.jared.commons.ui;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+
+/**
+ * A process-wide cache of fitted wallpapers, shared by every {@link WorkspaceView}.<br/>
+ * <br/>
+ * Entries are keyed by the identity of the wallpaper source and the size it has been fitted to, so that an activity
+ * recreated on rotation or a second workspace showing the same wallpaper get the already fitted bitmap without a new
+ * decode. The cache is bounded by a number of bytes and evicts the least recently used wallpapers first. Evicted
+ * bitmaps are not recycled since a workspace may still draw them.<br/>
+ * <br/>
+ * The cache registers itself for the trim callbacks of the application when it first stores a wallpaper, so that it
+ * shrinks under memory pressure.
+ */
+public final class WallpaperCache {
+
+    // Evicted bitmaps are left to the garbage collector
+    private static final BitmapLru<Key> entries = new BitmapLru<Key>();
+    private static int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+    // The application the trim callbacks are registered on, null until the first wallpaper is stored
+    private static Context application;
+    private static final ComponentCallbacks2 callbacks = new ComponentCallbacks2() {
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        public void onLowMemory() {
+            clear();
+        }
+
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
+
+    private WallpaperCache() {
+    }
+
+    /**
+     * Set the maximum number of bytes used by the cached wallpapers. Defaults to an eighth of the maximum heap.
+     *
+     * @param max
+     */
+    public static synchronized void setMaxBytes(int max) {
+        maxBytes = max;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * @return The number of bytes currently used by the cached wallpapers
+     */
+    public static synchronized int getBytes() {
+        return entries.getBytes();
+    }
+
+    /**
+     * Shrink the cache according to a trim level of {@link ComponentCallbacks2#onTrimMemory(int)}: it is emptied once
+     * the process is in the background or running critically low, and halved when running low or hidden. Called by
+     * the callbacks the cache registers.
+     *
+     * @param level
+     */
+    public static synchronized void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimToSize(0);
+        }
+        else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(entries.getBytes() / 2);
+        }
+    }
+
+    /**
+     * Remove every cached wallpaper
+     */
+    public static synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * Return the wallpaper fitted to the given size from the given source, or null if it is not cached
+     */
+    static synchronized Bitmap get(Object source, int width, int height) {
+        if (source == null) {
+            return null;
+        }
+        return entries.get(new Key(source, width, height));
+    }
+
+    /**
+     * Cache the wallpaper fitted to the given size from the given source. Does nothing if the source has no identity.
+     */
+    static synchronized void put(Context context, Object source, int width, int height, Bitmap bitmap) {
+        if (source == null) {
+            return;
+        }
+        final Context app = context.getApplicationContext();
+        if (app != application) {
+            if (application != null) {
+                application.unregisterComponentCallbacks(callbacks);
+            }
+            application = app;
+            application.registerComponentCallbacks(callbacks);
+        }
+        entries.put(new Key(source, width, height), bitmap);
+        trimToSize(maxBytes);
+    }
+
+    private static void trimToSize(int max) {
+        entries.trimToSize(max, 0);
+    }
+
+    /**
+     * A source identity and a target size
+     */
+    private static final class Key {
+        private final Object source;
+        private final int width;
+        private final int height;
+
+        Key(Object source, int width, int height) {
+            this.source = source;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return width == other.width && height == other.height && source.equals(other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return (source.hashCode() * 31 + width) * 31 + height;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package org.jared.commons.ui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.AsyncTask;
+import android.util.Log;
+
+/**
+ * Decodes and fits a wallpaper for a {@link WorkspaceView} in the background.<br/>
+ * <br/>
+ * The source is first decoded for its bounds only, then decoded with the biggest power of two sample size which keeps
+ * it at least as large as the workspace, and finally centered with {@link WorkspaceView#centerToFit}. The result is
+ * stored in the {@link WallpaperCache} and handed back on the UI thread through {@link Callback}.
+ */
+class WallpaperLoader extends AsyncTask<Void, Void, Bitmap> {
+
+    /**
+     * Receives the fitted wallpaper on the UI thread, or the news that none will come
+     */
+    interface Callback {
+        void onWallpaperLoaded(WallpaperLoader loader, Bitmap bitmap);
+
+        /**
+         * Called when the wallpaper could not be decoded or the loader was cancelled
+         */
+        void onWallpaperFailed(WallpaperLoader loader);
+    }
+
+    /**
+     * Where a wallpaper comes from. Decoding may be called several times, and from a background thread.
+     */
+    interface Source {
+        /**
+         * Decode the source with the given options. When options.inJustDecodeBounds is set, only the bounds are read.
+         */
+        Bitmap decode(BitmapFactory.Options options) throws IOException;
+
+        /**
+         * @return An object identifying this wallpaper in the {@link WallpaperCache}, or null if it cannot be cached
+         */
+        Object getCacheKey();
+
+        /**
+         * @return Whether the given bitmap is kept alive by whoever gave the source, so that dropping it frees nothing
+         */
+        boolean holds(Bitmap bitmap);
+    }
+
+    private final Source source;
+    private final int width;
+    private final int height;
+    private final Context context;
+    private final Callback callback;
+
+    WallpaperLoader(Source source, int width, int height, Context context, Callback callback) {
+        this.source = source;
+        this.width = width;
+        this.height = height;
+        this.context = context;
+        this.callback = callback;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    @Override
+    protected Bitmap doInBackground(Void... params) {
+        try {
+            final BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            source.decode(options);
+            options.inSampleSize = WorkspaceMath.sampleSize(options.outWidth, options.outHeight, width, height);
+            options.inJustDecodeBounds = false;
+            if (isCancelled()) {
+                return null;
+            }
+            final Bitmap bitmap = source.decode(options);
+            if (bitmap == null || isCancelled()) {
+                return null;
+            }
+            final Bitmap fitted = WorkspaceView.centerToFit(bitmap, width, height, context);
+            WallpaperCache.put(context, source.getCacheKey(), width, height, fitted);
+            return fitted;
+        }
+        catch (IOException e) {
+            Log.w("workspace", "Unable to decode the wallpaper", e);
+        }
+        catch (OutOfMemoryError e) {
+            Log.w("workspace", "Not enough memory to decode the wallpaper", e);
+        }
+        return null;
+    }
+
+    @Override
+    protected void onPostExecute(Bitmap result) {
+        if (result != null) {
+            callback.onWallpaperLoaded(this, result);
+        }
+        else {
+            callback.onWallpaperFailed(this);
+        }
+    }
+
+    @Override
+    protected void onCancelled() {
+        callback.onWallpaperFailed(this);
+    }
+
+    // ========================= SOURCES ==============================
+
+    /**
+     * A wallpaper stored as a drawable resource
+     */
+    static class ResourceSource implements Source {
+        private final Resources resources;
+        private final int id;
+
+        ResourceSource(Resources resources, int id) {
+            this.resources = resources;
+            this.id = id;
+        }
+
+        public Bitmap decode(BitmapFactory.Options options) {
+            return BitmapFactory.decodeResource(resources, id, options);
+        }
+
+        public Object getCacheKey() {
+            return "res:" + id;
+        }
+
+        public boolean holds(Bitmap bitmap) {
+            return false;
+        }
+    }
+
+    /**
+     * A wallpaper stored in a file
+     */
+    static class FileSource implements Source {
+        private final File file;
+
+        FileSource(File file) {
+            this.file = file;
+        }
+
+        public Bitmap decode(BitmapFactory.Options options) {
+            return BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        }
+
+        public Object getCacheKey() {
+            return "file:" + file.getAbsolutePath() + ":" + file.lastModified();
+        }
+
+        public boolean holds(Bitmap bitmap) {
+            return false;
+        }
+    }
+
+    /**
+     * A wallpaper read from a stream. The stream is read once, on the first decode, then closed; the encoded bytes are
+     * kept so that the wallpaper can be decoded again when the workspace size changes.
+     */
+    static class StreamSource implements Source {
+        private InputStream stream;
+        private byte[] data;
+
+        StreamSource(InputStream stream) {
+            this.stream = stream;
+        }
+
+        public synchronized Bitmap decode(BitmapFactory.Options options) throws IOException {
+            if (data == null) {
+                data = readFully(stream);
+                stream = null;
+            }
+            return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+
+        public Object getCacheKey() {
+            // A stream has no identity
+            return null;
+        }
+
+        public boolean holds(Bitmap bitmap) {
+            return false;
+        }
+
+        private static byte[] readFully(InputStream in) throws IOException {
+            try {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            }
+            finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * An already decoded wallpaper, which only needs to be fitted
+     */
+    static class BitmapSource implements Source {
+        private final Bitmap bitmap;
+
+        BitmapSource(Bitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+
+        public Bitmap decode(BitmapFactory.Options options) {
+            if (options.inJustDecodeBounds) {
+                // Sub-sampling does not apply to a decoded bitmap
+                options.outWidth = 0;
+                options.outHeight = 0;
+                return null;
+            }
+            return bitmap;
+        }
+
+        public Object getCacheKey() {
+            // Keying on the bitmap would keep the unfitted bitmap alive in the cache
+            return null;
+        }
+
+        public boolean holds(Bitmap fitted) {
+            // A bitmap needing no fitting is drawn as given
+            return fitted == bitmap;
+        }
+    }
+}
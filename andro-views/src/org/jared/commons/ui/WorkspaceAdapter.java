@@ -0,0 +1,44 @@
+package org.jared.commons.ui;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Provides the screens of a {@link WorkspaceView} on demand.<br/>
+ * <br/>
+ * When an adapter is set, the workspace only keeps a small window of screens around the current one attached. Screens
+ * leaving this window are handed back through {@link #recycle(View, int)} and reused for the next screen to bind, so
+ * a workspace with hundreds of screens only holds a few view hierarchies.
+ */
+public interface WorkspaceAdapter {
+
+    /**
+     * @return The number of screens in the workspace
+     */
+    int getCount();
+
+    /**
+     * Create a new screen view. Called only when no recycled view is available.
+     *
+     * @param parent The workspace the screen will be attached to
+     * @return
+     */
+    View createScreen(ViewGroup parent);
+
+    /**
+     * Fill a screen view (new or recycled) with the content of the given screen
+     *
+     * @param screen
+     * @param position The logical screen index
+     */
+    void bindScreen(View screen, int position);
+
+    /**
+     * Called when a screen has been detached from the workspace and is about to be reused
+     *
+     * @param screen
+     * @param position The logical screen index the view was bound to
+     */
+    void recycle(View screen, int position);
+
+}
@@ -0,0 +1,33 @@
+package org.jared.commons.ui;
+
+/**
+ * Notified of the layout changes of a {@link WorkspaceView}. Unlike {@link OnLoadListener}, which is called on every
+ * layout pass, each method is only called when what it reports has actually changed.
+ */
+public interface WorkspaceLayoutListener {
+
+    /**
+     * Called once, after the first layout of the workspace
+     * 
+     * @param workspace
+     */
+    void onFirstLayout(WorkspaceView workspace);
+
+    /**
+     * Called after a layout which changed the size of the workspace, except the first one
+     * 
+     * @param workspace
+     * @param width The new width
+     * @param height The new height
+     */
+    void onSizeChanged(WorkspaceView workspace, int width, int height);
+
+    /**
+     * Called after a layout following the addition or the removal of screens, or a change of the adapter's screens
+     * 
+     * @param workspace
+     * @param count The new number of screens
+     */
+    void onScreensChanged(WorkspaceView workspace, int count);
+
+}
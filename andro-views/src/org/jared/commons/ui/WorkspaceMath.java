@@ -0,0 +1,206 @@
+package org.jared.commons.ui;
+
+/**
+ * The arithmetic of {@link WorkspaceView}, free of any Android dependency so that it can be measured and checked on a
+ * plain JVM.
+ */
+final class WorkspaceMath {
+
+    private WorkspaceMath() {
+    }
+
+    /**
+     * The overshoot curve of the workspace scroller
+     *
+     * @param t The elapsed fraction of the animation, between 0 and 1
+     * @param tension The amount of overshoot, 0 for none
+     * @return
+     */
+    static float overshoot(float t, float tension) {
+        // _o(t) = t * t * ((tension + 1) * t + tension)
+        // o(t) = _o(t - 1) + 1
+        t -= 1.0f;
+        return t * t * ((tension + 1) * t + tension) + 1.0f;
+    }
+
+    /**
+     * The derivative of {@link #overshoot}, used to find the speed of a running scroll
+     *
+     * @param t The elapsed fraction of the animation, between 0 and 1
+     * @param tension The amount of overshoot, 0 for none
+     * @return
+     */
+    static float overshootSlope(float t, float tension) {
+        t -= 1.0f;
+        return 3 * (tension + 1) * t * t + 2 * tension * t;
+    }
+
+    /**
+     * Return how fast the wallpaper scrolls compared to the screens, so that its right edge is reached on the last
+     * screen
+     *
+     * @param wallpaperWidth
+     * @param width The width of a screen
+     * @param count The number of screens
+     * @return
+     */
+    static float wallpaperOffset(int wallpaperWidth, int width, int count) {
+        return wallpaperWidth > width && count > 1 ? (count * width - wallpaperWidth) / ((count - 1) * (float) width)
+                : 1.0f;
+    }
+
+    /**
+     * Return the screen closest to the given scroll position
+     *
+     * @param scrollX
+     * @param screenWidth
+     * @return
+     */
+    static int snapScreen(int scrollX, int screenWidth) {
+        return (scrollX + (screenWidth / 2)) / screenWidth;
+    }
+
+    /**
+     * Return the screen to scroll to when the finger is lifted: the neighbour in the direction of a fling fast enough,
+     * or the closest screen otherwise
+     *
+     * @param velocityX The horizontal velocity in pixels per second
+     * @param snapVelocity The minimal velocity of a fling
+     * @param currentScreen
+     * @param screenCount
+     * @param scrollX
+     * @param screenWidth
+     * @return
+     */
+    static int flingScreen(int velocityX, int snapVelocity, int currentScreen, int screenCount, int scrollX,
+            int screenWidth) {
+        if (velocityX > snapVelocity && currentScreen > 0) {
+            // Fling hard enough to move left
+            return currentScreen - 1;
+        }
+        else if (velocityX < -snapVelocity && currentScreen < screenCount - 1) {
+            // Fling hard enough to move right
+            return currentScreen + 1;
+        }
+        return snapScreen(scrollX, screenWidth);
+    }
+
+    /**
+     * Return how far a fling travels before coming to rest under a constant deceleration
+     *
+     * @param velocity The release velocity in pixels per second
+     * @param deceleration The deceleration in pixels per second squared
+     * @return The distance in pixels, always positive
+     */
+    static float flingDistance(float velocity, float deceleration) {
+        return velocity * velocity / (2 * deceleration);
+    }
+
+    /**
+     * Return the screen a fling comes to rest on when its velocity is projected through a constant deceleration. The
+     * target may be several screens away; a fling fast enough always moves at least one screen, like
+     * {@link #flingScreen}.
+     *
+     * @param velocityX The horizontal velocity in pixels per second, positive when the finger moves right
+     * @param snapVelocity The minimal velocity of a fling
+     * @param deceleration The deceleration in pixels per second squared
+     * @param currentScreen
+     * @param screenCount
+     * @param scrollX
+     * @param screenWidth
+     * @return
+     */
+    static int projectedFlingScreen(int velocityX, int snapVelocity, float deceleration, int currentScreen,
+            int screenCount, int scrollX, int screenWidth) {
+        if (Math.abs(velocityX) <= snapVelocity || screenWidth <= 0) {
+            return snapScreen(scrollX, screenWidth);
+        }
+        // Moving the finger right scrolls towards the left screens
+        final float distance = flingDistance(velocityX, deceleration);
+        final int restX = (int) (velocityX > 0 ? scrollX - distance : scrollX + distance);
+        int screen = restX < 0 ? 0 : snapScreen(restX, screenWidth);
+        if (velocityX > 0 && screen >= currentScreen) {
+            screen = currentScreen - 1;
+        }
+        else if (velocityX < 0 && screen <= currentScreen) {
+            screen = currentScreen + 1;
+        }
+        return Math.max(0, Math.min(screen, screenCount - 1));
+    }
+
+    /**
+     * Return the duration of a scroll along the {@link #overshoot} curve which starts at the given velocity, so that
+     * the screens leave the finger at its own speed and a fast fling lands quickly
+     *
+     * @param distance The distance to cover in pixels
+     * @param velocity The release velocity in pixels per second
+     * @param tension The tension of the curve
+     * @param minDuration The shortest duration in milliseconds
+     * @param maxDuration The longest duration in milliseconds
+     * @return The duration in milliseconds
+     */
+    static int flingDuration(int distance, int velocity, float tension, int minDuration, int maxDuration) {
+        distance = Math.abs(distance);
+        velocity = Math.abs(velocity);
+        if (velocity == 0) {
+            return maxDuration;
+        }
+        // The curve starts at distance * slope / duration, its slope at t=0 being tension + 3
+        final long duration = (long) (1000L * distance * overshootSlope(0, tension) / velocity);
+        return (int) Math.max(minDuration, Math.min(duration, maxDuration));
+    }
+
+    /**
+     * Return the number of columns of the overview grid, as many as rows or one more
+     *
+     * @param screenCount
+     * @return
+     */
+    static int overviewColumns(int screenCount) {
+        final int columns = (int) Math.ceil(Math.sqrt(screenCount));
+        return Math.max(1, columns);
+    }
+
+    /**
+     * Return the size of a wallpaper dimension once centered to fit the target: the target if the wallpaper is
+     * smaller, the wallpaper itself otherwise
+     *
+     * @param bitmapSize
+     * @param targetSize
+     * @return
+     */
+    static int fitSize(int bitmapSize, int targetSize) {
+        return bitmapSize < targetSize ? targetSize : bitmapSize;
+    }
+
+    /**
+     * Return where a wallpaper dimension starts once centered in the target
+     *
+     * @param bitmapSize
+     * @param targetSize
+     * @return
+     */
+    static float fitOffset(int bitmapSize, int targetSize) {
+        return (targetSize - bitmapSize) / 2.0f;
+    }
+
+    /**
+     * Return the biggest power of two sample size which keeps a decoded bitmap at least as large as the target
+     *
+     * @param sourceWidth
+     * @param sourceHeight
+     * @param width
+     * @param height
+     * @return
+     */
+    static int sampleSize(int sourceWidth, int sourceHeight, int width, int height) {
+        int sampleSize = 1;
+        if (sourceWidth <= 0 || sourceHeight <= 0 || width <= 0 || height <= 0) {
+            return sampleSize;
+        }
+        while (sourceWidth / (sampleSize * 2) >= width && sourceHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+}
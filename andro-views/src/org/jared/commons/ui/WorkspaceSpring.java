@@ -0,0 +1,110 @@
+package org.jared.commons.ui;
+
+/**
+ * A damped spring pulling the scroll position of a {@link WorkspaceView} toward a target, used instead of the
+ * Scroller and its overshoot interpolator when spring animations are enabled.<br/>
+ * <br/>
+ * The spring is advanced by the time elapsed since the previous frame, in fixed sub-steps, so that it moves the same
+ * way whatever the frame rate. It keeps its velocity when it is retargeted, so that changing the destination in
+ * flight never makes the position jump, and it reports when it has settled so that no frame is requested afterwards.
+ * Free of any Android dependency.
+ */
+final class WorkspaceSpring {
+
+    // The stiffness of the spring, in 1/s^2
+    static final float DEFAULT_STIFFNESS = 170f;
+    // The damping ratio, below 1 the spring overshoots slightly
+    static final float DEFAULT_DAMPING_RATIO = 0.8f;
+    // The longest integration step, in seconds
+    private static final float MAX_STEP = 0.004f;
+    // The longest time advanced by a single frame, so that a stalled frame does not throw the spring far away
+    private static final float MAX_FRAME = 0.1f;
+    // Below these distance and speed, the spring is at rest
+    private static final float SETTLE_DISTANCE = 0.5f;
+    private static final float SETTLE_VELOCITY = 10f;
+
+    private float stiffness = DEFAULT_STIFFNESS;
+    private float damping = 2 * DEFAULT_DAMPING_RATIO * (float) Math.sqrt(DEFAULT_STIFFNESS);
+    private float position;
+    // In pixels per second
+    private float velocity;
+    private float target;
+    private long lastTime;
+    private boolean running;
+
+    /**
+     * Set the physics of the spring
+     *
+     * @param springStiffness In 1/s^2, higher is faster
+     * @param dampingRatio 1 for no overshoot, lower values overshoot more
+     */
+    void setPhysics(float springStiffness, float dampingRatio) {
+        stiffness = springStiffness;
+        damping = 2 * dampingRatio * (float) Math.sqrt(springStiffness);
+    }
+
+    /**
+     * Start moving toward a target. A running spring keeps its velocity.
+     *
+     * @param from The current position
+     * @param to The target position
+     * @param initialVelocity The velocity in pixels per second, used when the spring is not running
+     * @param now The current time in milliseconds
+     */
+    void start(float from, float to, float initialVelocity, long now) {
+        if (!running) {
+            velocity = initialVelocity;
+        }
+        position = from;
+        target = to;
+        lastTime = now;
+        running = true;
+    }
+
+    /**
+     * Stop where the spring is, for when a finger catches the screens
+     */
+    void stop() {
+        running = false;
+        velocity = 0;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    float getPosition() {
+        return position;
+    }
+
+    float getTarget() {
+        return target;
+    }
+
+    /**
+     * Advance the spring to the given time
+     *
+     * @param now The current time in milliseconds
+     * @return Whether the spring is still moving, false once it has settled on its target
+     */
+    boolean step(long now) {
+        if (!running) {
+            return false;
+        }
+        float remaining = Math.min(MAX_FRAME, (now - lastTime) / 1000f);
+        lastTime = now;
+        while (remaining > 0) {
+            final float dt = Math.min(remaining, MAX_STEP);
+            // Semi-implicit Euler, stable for the stiffness used here
+            velocity += (-stiffness * (position - target) - damping * velocity) * dt;
+            position += velocity * dt;
+            remaining -= dt;
+        }
+        if (Math.abs(position - target) < SETTLE_DISTANCE && Math.abs(velocity) < SETTLE_VELOCITY) {
+            position = target;
+            velocity = 0;
+            running = false;
+        }
+        return running;
+    }
+}
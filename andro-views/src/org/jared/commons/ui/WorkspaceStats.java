@@ -0,0 +1,163 @@
+package org.jared.commons.ui;
+
+/**
+ * Counts the measure, layout and draw passes of a {@link WorkspaceView}, so that a test harness or a debug screen can
+ * check how much work a gesture costs. Reset the counters before the gesture and read them once it has settled. Also
+ * counts the events sent to the {@link WorkspaceLayoutListener}.
+ */
+public class WorkspaceStats {
+
+    int measurePasses;
+    int layoutPasses;
+    int childMeasures;
+    int childLayouts;
+    int drawPasses;
+    int screensDrawn;
+    int firstLayouts;
+    int sizeChanges;
+    int screenSetChanges;
+    int wallpaperSkips;
+    long pixelsDrawn;
+    int framePixelsDrawn;
+    int animationFrames;
+    long animationNanos;
+    long bytesReleased;
+
+    /**
+     * @return The number of times the workspace has been measured
+     */
+    public int getMeasurePasses() {
+        return measurePasses;
+    }
+
+    /**
+     * @return The number of times the workspace has been laid out
+     */
+    public int getLayoutPasses() {
+        return layoutPasses;
+    }
+
+    /**
+     * @return The number of screens measured by all the measure passes. Screens which did not change are skipped.
+     */
+    public int getChildMeasures() {
+        return childMeasures;
+    }
+
+    /**
+     * @return The number of screens laid out by all the layout passes. Screens which did not move are skipped.
+     */
+    public int getChildLayouts() {
+        return childLayouts;
+    }
+
+    /**
+     * @return The number of times the workspace has drawn its screens
+     */
+    public int getDrawPasses() {
+        return drawPasses;
+    }
+
+    /**
+     * @return The total number of screens drawn by all the draw passes
+     */
+    public int getScreensDrawn() {
+        return screensDrawn;
+    }
+
+    /**
+     * @return The number of first layout events, 1 once the workspace has been laid out
+     */
+    public int getFirstLayouts() {
+        return firstLayouts;
+    }
+
+    /**
+     * @return The number of size change events
+     */
+    public int getSizeChanges() {
+        return sizeChanges;
+    }
+
+    /**
+     * @return The number of screen set change events
+     */
+    public int getScreenSetChanges() {
+        return screenSetChanges;
+    }
+
+    /**
+     * @return The number of draw passes which skipped the wallpaper because opaque screens covered it entirely
+     */
+    public int getWallpaperSkips() {
+        return wallpaperSkips;
+    }
+
+    /**
+     * @return An estimate of the pixels written by all the draw passes: the uncovered part of the wallpaper plus the
+     *         visible part of each screen drawn. Divide by the viewport area to get the overdraw factor.
+     */
+    public long getPixelsDrawn() {
+        return pixelsDrawn;
+    }
+
+    /**
+     * @return The same estimate for the last draw pass only
+     */
+    public int getFramePixelsDrawn() {
+        return framePixelsDrawn;
+    }
+
+    /**
+     * @return The number of frames advanced by the scroll animations
+     */
+    public int getAnimationFrames() {
+        return animationFrames;
+    }
+
+    /**
+     * @return The time spent advancing the scroll animations, in nanoseconds. Divide by the number of animation frames
+     *         to get the cost of a frame.
+     */
+    public long getAnimationNanos() {
+        return animationNanos;
+    }
+
+    /**
+     * @return The number of bitmap bytes released under memory pressure or when the workspace was detached
+     */
+    public long getBytesReleased() {
+        return bytesReleased;
+    }
+
+    /**
+     * Set every counter back to 0
+     */
+    public void reset() {
+        measurePasses = 0;
+        layoutPasses = 0;
+        childMeasures = 0;
+        childLayouts = 0;
+        drawPasses = 0;
+        screensDrawn = 0;
+        firstLayouts = 0;
+        sizeChanges = 0;
+        screenSetChanges = 0;
+        wallpaperSkips = 0;
+        pixelsDrawn = 0;
+        framePixelsDrawn = 0;
+        animationFrames = 0;
+        animationNanos = 0;
+        bytesReleased = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "measures=" + measurePasses + " layouts=" + layoutPasses + " childMeasures=" + childMeasures
+                + " childLayouts=" + childLayouts + " draws=" + drawPasses + " screensDrawn="
+                + screensDrawn + " firstLayouts=" + firstLayouts + " sizeChanges=" + sizeChanges
+                + " screenSetChanges=" + screenSetChanges + " wallpaperSkips=" + wallpaperSkips + " pixelsDrawn="
+                + pixelsDrawn + " animationFrames=" + animationFrames + " animationNanos=" + animationNanos
+                + " bytesReleased=" + bytesReleased;
+    }
+}
@@ -0,0 +1,90 @@
+package org.jared.commons.ui;
+
+import android.os.SystemClock;
+
+/**
+ * Records what happens in the touch and scroll paths of a {@link WorkspaceView} into a ring buffer.<br/>
+ * <br/>
+ * Every call site is guarded by {@link #ENABLED}, which is a compile time constant: when it is false the compiler
+ * drops the calls and their arguments entirely, so the hot paths neither allocate nor log. When it is true, events are
+ * stored as primitives in preallocated arrays instead of being formatted and written to logcat; {@link #dump()}
+ * formats them on demand. Must only be used from the UI thread.
+ */
+public final class WorkspaceTrace {
+
+    /** Set to true to record the events */
+    public static final boolean ENABLED = false;
+
+    // The number of events kept, older events are overwritten
+    private static final int CAPACITY = 256;
+
+    // An event seen by onInterceptTouchEvent: a = action, b = touch state
+    static final int EVENT_INTERCEPT = 0;
+    // An event handled by onTouchEvent outside of the scrolling move: a = action, b = touch state
+    static final int EVENT_TOUCH = 1;
+    // The touch state changed: a = old state, b = new state
+    static final int EVENT_STATE = 2;
+    // A finger lifted while scrolling: a = current screen, b = chosen screen, value = velocity
+    static final int EVENT_FLING = 3;
+    // A snap to the nearest screen: a = chosen screen, b = scroll x
+    static final int EVENT_SNAP = 4;
+    // An animated scroll to a screen: a = screen, b = delta in pixels
+    static final int EVENT_SCROLL_TO_SCREEN = 5;
+    // An immediate change of screen: a = screen, b = width
+    static final int EVENT_SET_CURRENT_SCREEN = 6;
+
+    private static final String[] EVENT_NAMES = { "intercept", "touch", "state", "fling", "snap", "scrollToScreen",
+            "setCurrentScreen" };
+
+    private static final long[] times = new long[CAPACITY];
+    private static final int[] types = new int[CAPACITY];
+    private static final int[] as = new int[CAPACITY];
+    private static final int[] bs = new int[CAPACITY];
+    private static final float[] values = new float[CAPACITY];
+    // The number of events recorded since the last clear
+    private static int count;
+
+    private WorkspaceTrace() {
+    }
+
+    static void record(int type, int a, int b) {
+        record(type, a, b, 0f);
+    }
+
+    static void record(int type, int a, int b, float value) {
+        final int i = count % CAPACITY;
+        times[i] = SystemClock.uptimeMillis();
+        types[i] = type;
+        as[i] = a;
+        bs[i] = b;
+        values[i] = value;
+        count++;
+    }
+
+    /**
+     * Forget every recorded event
+     */
+    public static void clear() {
+        count = 0;
+    }
+
+    /**
+     * Format the recorded events, oldest first, one per line
+     *
+     * @return
+     */
+    public static String dump() {
+        final StringBuilder out = new StringBuilder();
+        final int first = Math.max(0, count - CAPACITY);
+        for (int n = first; n < count; n++) {
+            final int i = n % CAPACITY;
+            out.append(times[i]).append(' ').append(EVENT_NAMES[types[i]]).append(" a=").append(as[i])
+                    .append(" b=").append(bs[i]);
+            if (values[i] != 0f) {
+                out.append(" value=").append(values[i]);
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+}
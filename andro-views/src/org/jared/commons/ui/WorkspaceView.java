@@ -9,21 +9,33 @@ package org.jared.commons.ui;
      * License.
      */
 
+    import android.content.ComponentCallbacks2;
     import android.content.Context;
+    import android.content.res.Configuration;
 import android.graphics.*;
     import android.os.Parcel;
+    import android.os.Looper;
+    import android.os.MessageQueue;
     import android.os.Parcelable;
+    import android.os.SystemClock;
     import android.util.AttributeSet;
-    import android.util.Log;
+    import android.util.SparseArray;
     import android.view.MotionEvent;
     import android.view.VelocityTracker;
     import android.view.View;
     import android.view.ViewConfiguration;
     import android.view.ViewGroup;
     import android.view.ViewParent;
+    import android.view.animation.AnimationUtils;
+    import android.view.animation.DecelerateInterpolator;
     import android.view.animation.Interpolator;
 import android.widget.Scroller;
 
+    import java.io.File;
+    import java.io.InputStream;
+    import java.util.ArrayList;
+    import java.util.IdentityHashMap;
+
     /**
      * The workspace is a wide area with a infinite number of screens. Each screen contains a view. A workspace is meant to
      * be used with a fixed width only.<br/>
@@ -40,22 +52,89 @@ import android.widget.Scroller;
         // The velocity at which a fling gesture will cause us to snap to the next screen
         private static final int SNAP_VELOCITY = 500;
 
+        // The deceleration of a projected fling, in density independent pixels per second squared
+        private static final float FLING_DECELERATION_DIPS = 3000f;
+        // The bounds of the duration of a projected fling, in milliseconds
+        private static final int MIN_FLING_DURATION = 150;
+        private static final int MAX_FLING_DURATION = 1200;
+        // The duration of a jump between distant screens, in milliseconds, whatever the distance
+        private static final int JUMP_DURATION = 300;
+
+        // The delay before a wallpaper which could not be fitted is fitted again by a draw, in milliseconds
+        private static final int WALLPAPER_RETRY_DELAY = 1000;
+
+        // The default number of screens kept attached on each side of the current screen when an adapter is used
+        private static final int DEFAULT_OFFSCREEN_SCREEN_LIMIT = 1;
+
+        // The deepest a view looked up by getScreenForView may be nested in its screen
+        private static final int MAX_ANCESTOR_DEPTH = 32;
+
+        // The default number of screens created ahead on each side of the current screen when a factory is used
+        private static final int DEFAULT_PREFETCH_DISTANCE = 1;
+
         // the default screen index
         private int defaultScreen;
         // The current screen index
         private int currentScreen;
         // The next screen index
         private int nextScreen = INVALID_SCREEN;
+        // The adapter providing the screens, null if the screens are added as children
+        private WorkspaceAdapter adapter;
+        // The screens currently attached when an adapter is used, by logical index
+        private SparseArray<View> attachedScreens;
+        // The detached screens waiting to be bound again
+        private ArrayList<View> recycledScreens;
+        // The number of screens kept attached on each side of the current, next and visible screens
+        private int offscreenScreenLimit = DEFAULT_OFFSCREEN_SCREEN_LIMIT;
+        // The state used by the last populateScreens, to skip it when nothing moved
+        private int populatedCurrentScreen = INVALID_SCREEN;
+        private int populatedNextScreen = INVALID_SCREEN;
+        private int populatedScrollScreen = INVALID_SCREEN;
+        // The factory creating the screens lazily, null if the screens are added as children
+        private ScreenFactory screenFactory;
+        // The number of screens created ahead on each side of the current, next and visible screens
+        private int prefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+        // Whether the prefetcher is registered to create screens when the UI thread is idle
+        private boolean prefetchScheduled;
+        // The last measure specs given to the children, used to measure a screen attached between two layouts
+        private int childWidthMeasureSpec;
+        private int childHeightMeasureSpec;
         // Wallpaper properties
         private Bitmap wallpaper;
         private Paint paint;
         private int wallpaperWidth;
         private int wallpaperHeight;
         private float wallpaperOffset;
-        private boolean wallpaperLoaded;
+        // The source of the wallpaper and the background task decoding it, if any
+        private WallpaperLoader.Source wallpaperSource;
+        private WallpaperLoader wallpaperLoader;
+        // The workspace size the current wallpaper has been fitted to
+        private int wallpaperFitWidth;
+        private int wallpaperFitHeight;
+        // The earliest time a draw may fit the wallpaper again after a failure
+        private long wallpaperRetryTime;
+        // The tiled wallpaper used instead of the bitmap for very wide wallpapers, if any
+        private TiledWallpaper tiledWallpaper;
+        private int tiledWallpaperBudget = TiledWallpaper.DEFAULT_BYTE_BUDGET;
         private boolean firstWallpaperLayout = true;
-        private static final int TAB_INDICATOR_HEIGHT_PCT = 2;
-        private RectF selectedTab;
+        // The persisted pictures of the screens shown until the real screens are laid out, null when not used
+        private ScreenSnapshots snapshots;
+        private final Rect snapshotRect = new Rect();
+        // The screen view carrying each tag, updated as the screens are added and removed
+        private final IdentityHashMap<Object, View> tagScreens = new IdentityHashMap<Object, View>();
+        // Whether all the screens are shown at once from their thumbnails
+        private boolean overviewMode;
+        // The thumbnails of the overview, created when the overview is first shown
+        private ScreenThumbnails thumbnails;
+        private int thumbnailBudget = ScreenThumbnails.DEFAULT_BYTE_BUDGET;
+        private Paint overviewFramePaint;
+        private Paint overviewPlaceholderPaint;
+        private final Rect overviewRect = new Rect();
+        // Where the finger went down in the overview
+        private float overviewDownX;
+        private float overviewDownY;
+        // The tab indicator drawn at the bottom of the workspace
+        private TabIndicator tabIndicator;
 
 
         // The scroller which scroll each view
@@ -79,17 +158,50 @@ import android.widget.Scroller;
         private boolean allowLongPress;
         // A flag to know if touch event have to be ignored. Used also in internal
         private boolean locked;
+        // Whether the current and neighbouring screens are drawn from a hardware layer while scrolling
+        private boolean scrollingCacheEnabled;
+        // Whether the screens are currently promoted to layers
+        private boolean childrenLayersActive;
+        // The screens promoted by the workspace, which has to demote them when the scroll settles
+        private final ArrayList<View> layerScreens = new ArrayList<View>(3);
+        // The counters of measure, layout and draw passes
+        private final WorkspaceStats stats = new WorkspaceStats();
+        // The listener receiving the draw timings of each gesture, null when they are not recorded
+        private GestureStatsListener gestureStatsListener;
+        private final GestureStats gestureStats = new GestureStats();
+        // The long click listener of the screens, also given to the screens attached or created later
+        private OnLongClickListener screenLongClickListener;
+        // The listener told ahead of time of the screen the workspace moves to
+        private ScreenChangeListener screenListener;
+        // The neighbour last reported as approached by the current drag
+        private int approachedScreen = INVALID_SCREEN;
+        // Estimates the finger position from the samples of the current drag
+        private final TouchPredictor touchPredictor = new TouchPredictor();
+        // How far ahead of the latest touch sample a drag is predicted, in milliseconds, 0 when disabled
+        private int touchPredictionMillis;
 
         private WorkspaceOvershootInterpolator mScrollInterpolator;
 
         private int mMaximumVelocity;
-
-        private Paint selectedTabPaint;
-        private Canvas canvas;
-
-        private RectF bar;
-
-        private Paint tabIndicatorBackgroundPaint;
+        // Whether scrolling to a screen more than one screen away slides the destination in instead of scrolling
+        // through every screen in between
+        private boolean jumpModeEnabled;
+        // Drives the progress of a jump, from 0 to JUMP_RANGE
+        private Scroller jumpScroller;
+        private static final int JUMP_RANGE = 1000;
+        // The screen a jump started from, INVALID_SCREEN when no jump is running
+        private int jumpFromScreen = INVALID_SCREEN;
+        // Whether the screens away from the current one are released with the other resources
+        private boolean releaseOffscreenScreens;
+        // The screen requested by the navigation commands received since the last frame, INVALID_SCREEN if none
+        private int pendingNavigationScreen = INVALID_SCREEN;
+        // Whether scrolls are animated by a spring instead of the scroller
+        private boolean springAnimationEnabled;
+        private final WorkspaceSpring spring = new WorkspaceSpring();
+        // Whether a fling is projected through flingDeceleration instead of moving one screen at most
+        private boolean projectedFlingEnabled;
+        // The deceleration of a projected fling, in pixels per second squared
+        private float flingDeceleration;
 
         private static class WorkspaceOvershootInterpolator implements Interpolator {
             private static final float DEFAULT_TENSION = 1.3f;
@@ -107,11 +219,12 @@ import android.widget.Scroller;
                 mTension = 0.f;
             }
 
+            public float getTension() {
+                return mTension;
+            }
+
             public float getInterpolation(float t) {
-                // _o(t) = t * t * ((tension + 1) * t + tension)
-                // o(t) = _o(t - 1) + 1
-                t -= 1.0f;
-                return t * t * ((mTension + 1) * t + mTension) + 1.0f;
+                return WorkspaceMath.overshoot(t, mTension);
             }
         }
 
@@ -144,6 +257,7 @@ import android.widget.Scroller;
         private void initWorkspace() {
             mScrollInterpolator = new WorkspaceOvershootInterpolator();
             scroller = new Scroller(getContext(),mScrollInterpolator);
+            jumpScroller = new Scroller(getContext(), new DecelerateInterpolator());
             currentScreen = defaultScreen;
 
             paint = new Paint();
@@ -153,14 +267,10 @@ import android.widget.Scroller;
             final ViewConfiguration configuration = ViewConfiguration.get(getContext());
             touchSlop = configuration.getScaledTouchSlop();
             mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
+            flingDeceleration = FLING_DECELERATION_DIPS * getResources().getDisplayMetrics().density;
 
-            selectedTabPaint = new Paint();
-            selectedTabPaint.setColor(Color.RED);
-            selectedTabPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-
-            tabIndicatorBackgroundPaint = new Paint();
-            tabIndicatorBackgroundPaint.setColor(Color.GRAY);
-            tabIndicatorBackgroundPaint.setStyle(Paint.Style.FILL);
+            tabIndicator = new TabIndicator();
+            super.setOnHierarchyChangeListener(screensChangeListener);
         }
 
         /**
@@ -173,15 +283,267 @@ import android.widget.Scroller;
         }
 
         /**
-         * Set the background's wallpaper.
+         * Set the background's wallpaper. The bitmap is fitted to the workspace in the background.
          */
         public void loadWallpaper(Bitmap bitmap) {
+            loadWallpaper(new WallpaperLoader.BitmapSource(bitmap));
+        }
+
+        /**
+         * Set the background's wallpaper from a drawable resource, decoded in the background
+         * 
+         * @param resId
+         */
+        public void loadWallpaper(int resId) {
+            loadWallpaper(new WallpaperLoader.ResourceSource(getResources(), resId));
+        }
+
+        /**
+         * Set the background's wallpaper from a file, decoded in the background
+         * 
+         * @param file
+         */
+        public void loadWallpaper(File file) {
+            loadWallpaper(new WallpaperLoader.FileSource(file));
+        }
+
+        /**
+         * Set the background's wallpaper from a stream, read and decoded in the background. The stream is closed once
+         * read.
+         * 
+         * @param stream
+         */
+        public void loadWallpaper(InputStream stream) {
+            loadWallpaper(new WallpaperLoader.StreamSource(stream));
+        }
+
+        private void loadWallpaper(WallpaperLoader.Source source) {
+            releaseTiledWallpaper();
+            wallpaperSource = source;
+            wallpaperFitWidth = 0;
+            wallpaperFitHeight = 0;
+            if (wallpaperLoader != null) {
+                wallpaperLoader.cancel(false);
+                wallpaperLoader = null;
+            }
+            startWallpaperLoader(getMeasuredWidth(), getMeasuredHeight());
+        }
+
+        /**
+         * Start decoding the wallpaper for the given size, unless it is already fitted or being fitted to this size. The
+         * current wallpaper is kept until the new one is ready.
+         */
+        private void startWallpaperLoader(int width, int height) {
+            if (wallpaperSource == null || width <= 0 || height <= 0) {
+                return;
+            }
+            if (wallpaperLoader != null) {
+                if (wallpaperLoader.getWidth() == width && wallpaperLoader.getHeight() == height) {
+                    return;
+                }
+                wallpaperLoader.cancel(false);
+            }
+            else if (wallpaperFitWidth == width && wallpaperFitHeight == height) {
+                return;
+            }
+            // Another workspace, or this one before a rotation, may already have fitted this wallpaper
+            final Bitmap cached = WallpaperCache.get(wallpaperSource.getCacheKey(), width, height);
+            if (cached != null) {
+                wallpaperLoader = null;
+                setFittedWallpaper(cached, width, height);
+                return;
+            }
+            wallpaperLoader = new WallpaperLoader(wallpaperSource, width, height, getContext(), wallpaperCallback);
+            wallpaperLoader.execute();
+        }
+
+        /**
+         * Swap in a wallpaper fitted in the background. Called on the UI thread.
+         */
+        private final WallpaperLoader.Callback wallpaperCallback = new WallpaperLoader.Callback() {
+            public void onWallpaperLoaded(WallpaperLoader loader, Bitmap bitmap) {
+                if (loader != wallpaperLoader) {
+                    // A newer wallpaper or size has been requested meanwhile
+                    return;
+                }
+                wallpaperLoader = null;
+                setFittedWallpaper(bitmap, loader.getWidth(), loader.getHeight());
+            }
+
+            public void onWallpaperFailed(WallpaperLoader loader) {
+                if (loader == wallpaperLoader) {
+                    // Let a size change or a later draw fit it again, but not every frame
+                    wallpaperLoader = null;
+                    wallpaperRetryTime = SystemClock.uptimeMillis() + WALLPAPER_RETRY_DELAY;
+                }
+            }
+        };
+
+        private void setFittedWallpaper(Bitmap bitmap, int fitWidth, int fitHeight) {
             wallpaper = bitmap;
-            wallpaperLoaded = true;
-            requestLayout();
+            wallpaperWidth = bitmap.getWidth();
+            wallpaperHeight = bitmap.getHeight();
+            wallpaperFitWidth = fitWidth;
+            wallpaperFitHeight = fitHeight;
+            updateWallpaperOffset(getMeasuredWidth());
+            invalidate();
+        }
+
+        /**
+         * Set a very wide background's wallpaper from a file. Only the tiles around the visible part are decoded, in the
+         * background, and kept within the budget set by {@link #setTiledWallpaperBudget(int)}. Requires API level 10.
+         * 
+         * @param file
+         */
+        public void loadTiledWallpaper(File file) {
+            loadTiledWallpaper(new TiledWallpaper.FileSource(file));
+        }
+
+        /**
+         * Set a very wide background's wallpaper from a stream, closed once read. Requires API level 10.
+         * 
+         * @param stream
+         * @see #loadTiledWallpaper(File)
+         */
+        public void loadTiledWallpaper(InputStream stream) {
+            loadTiledWallpaper(new TiledWallpaper.StreamSource(stream));
+        }
+
+        /**
+         * Set a very wide background's wallpaper from a resource. Requires API level 10.
+         * 
+         * @param resId
+         * @see #loadTiledWallpaper(File)
+         */
+        public void loadTiledWallpaper(int resId) {
+            loadTiledWallpaper(new TiledWallpaper.ResourceSource(getResources(), resId));
+        }
+
+        private void loadTiledWallpaper(TiledWallpaper.Source source) {
+            // The tiled wallpaper replaces the bitmap one
+            if (wallpaperLoader != null) {
+                wallpaperLoader.cancel(false);
+                wallpaperLoader = null;
+            }
+            wallpaperSource = null;
+            wallpaper = null;
+            wallpaperWidth = 0;
+            wallpaperHeight = 0;
+            releaseTiledWallpaper();
+            tiledWallpaper = new TiledWallpaper(source, this, tiledWallpaperCallback);
+            tiledWallpaper.setByteBudget(tiledWallpaperBudget);
+            tiledWallpaper.setViewHeight(getMeasuredHeight());
+            invalidate();
+        }
+
+        /**
+         * Set the directory where the snapshots of the screens are stored, usually under Context.getCacheDir(), or null
+         * to stop using snapshots. The snapshots of the current screen and its neighbours are read in the background
+         * and drawn in place of the screens until those are created and laid out, so that a cold start shows the last
+         * known content at once. Call it after setting the current screen.
+         * 
+         * @param directory
+         * @see #saveSnapshots()
+         */
+        public void setSnapshotDirectory(File directory) {
+            if (snapshots != null) {
+                snapshots.releaseAll();
+                snapshots = null;
+            }
+            if (directory != null) {
+                snapshots = new ScreenSnapshots(directory, snapshotsCallback);
+                snapshots.load(Math.max(0, currentScreen - 1), currentScreen + 1);
+            }
             invalidate();
         }
 
+        /**
+         * Store a downscaled picture of the current screen and its neighbours in the snapshot directory, for the next
+         * launch. Call it when the activity goes to the background, from onPause() or onStop(). The pictures are drawn
+         * now and written in the background.
+         */
+        public void saveSnapshots() {
+            final int width = getWidth();
+            final int height = getHeight();
+            if (snapshots == null || width == 0 || height == 0) {
+                return;
+            }
+            final int snapshotWidth = (int) (width * ScreenSnapshots.SCALE);
+            final int snapshotHeight = (int) (height * ScreenSnapshots.SCALE);
+            for (int screen = currentScreen - 1; screen <= currentScreen + 1; screen++) {
+                final View view = getScreenAt(screen);
+                if (!isScreenReady(view)) {
+                    continue;
+                }
+                try {
+                    final Bitmap bitmap = Bitmap.createBitmap(snapshotWidth, snapshotHeight, Bitmap.Config.RGB_565);
+                    final Canvas canvas = new Canvas(bitmap);
+                    canvas.scale(ScreenSnapshots.SCALE, ScreenSnapshots.SCALE);
+                    // The wallpaper as it is seen behind the screen when the screen is current
+                    final int left = view.getLeft();
+                    if (wallpaper != null) {
+                        canvas.drawBitmap(wallpaper, getWallpaperX(left, width) - left, (height - wallpaperHeight) / 2,
+                                paint);
+                    }
+                    else if (tiledWallpaper != null) {
+                        canvas.translate(-left, 0);
+                        tiledWallpaper.draw(canvas, getWallpaperX(left, width), (height - wallpaperHeight) / 2, left,
+                                width, left, left + width);
+                        canvas.translate(left, 0);
+                    }
+                    view.draw(canvas);
+                    snapshots.save(screen, bitmap);
+                }
+                catch (OutOfMemoryError e) {
+                    // Snapshots are only a nicety
+                    return;
+                }
+            }
+        }
+
+        private final ScreenSnapshots.Callback snapshotsCallback = new ScreenSnapshots.Callback() {
+            public void onSnapshotsLoaded(ScreenSnapshots loaded) {
+                if (loaded == snapshots) {
+                    invalidate();
+                }
+            }
+        };
+
+        /**
+         * Set the maximum number of bytes used by the decoded tiles of a tiled wallpaper
+         * 
+         * @param bytes
+         */
+        public void setTiledWallpaperBudget(int bytes) {
+            tiledWallpaperBudget = bytes;
+            if (tiledWallpaper != null) {
+                tiledWallpaper.setByteBudget(bytes);
+            }
+        }
+
+        private void releaseTiledWallpaper() {
+            if (tiledWallpaper != null) {
+                tiledWallpaper.release();
+                tiledWallpaper = null;
+            }
+        }
+
+        private final TiledWallpaper.Callback tiledWallpaperCallback = new TiledWallpaper.Callback() {
+            public void onTiledWallpaperReady(TiledWallpaper wallpaper) {
+                if (wallpaper != tiledWallpaper) {
+                    return;
+                }
+                wallpaperWidth = wallpaper.getWidth();
+                wallpaperHeight = wallpaper.getHeight();
+                updateWallpaperOffset(getMeasuredWidth());
+                invalidate();
+            }
+        };
+
+        private void updateWallpaperOffset(int width) {
+            wallpaperOffset = WorkspaceMath.wallpaperOffset(wallpaperWidth, width, getScreenCount());
+        }
+
         boolean isDefaultScreenShowing() {
             return currentScreen == defaultScreen;
         }
@@ -203,9 +565,20 @@ import android.widget.Scroller;
         public void setCurrentScreen(int theCurrentScreen) {
 
             if (!scroller.isFinished()) scroller.abortAnimation();
-            currentScreen = Math.max(0, Math.min(theCurrentScreen, getChildCount()));
+            spring.stop();
+            pendingNavigationScreen = INVALID_SCREEN;
+            cancelJump();
+            currentScreen = Math.max(0, Math.min(theCurrentScreen, getScreenCount()));
             scrollTo(currentScreen * getWidth(), 0);
-            Log.d("workspace", "setCurrentScreen: width is " + getWidth());
+            populateScreens();
+            schedulePrefetch();
+            if (WorkspaceTrace.ENABLED) {
+                WorkspaceTrace.record(WorkspaceTrace.EVENT_SET_CURRENT_SCREEN, currentScreen, getWidth());
+            }
+            approachedScreen = INVALID_SCREEN;
+            if (screenListener != null) {
+                screenListener.onScreenSettled(this, currentScreen);
+            }
             invalidate();
         }
 
@@ -217,198 +590,738 @@ import android.widget.Scroller;
         }
 
         /**
-         * Registers the specified listener on each screen contained in this workspace.
+         * Registers the specified listener on each screen contained in this workspace, and on the screens attached by
+         * the adapter or created by the factory later.
          * 
          * @param l The listener used to respond to long clicks.
          */
         @Override
         public void setOnLongClickListener(OnLongClickListener l) {
+            screenLongClickListener = l;
             final int count = getChildCount();
             for (int i = 0; i < count; i++) {
-                getChildAt(i).setOnLongClickListener(l);
+                final View child = getChildAt(i);
+                child.setOnLongClickListener(l);
+                if (child instanceof LazyScreen && ((LazyScreen) child).getScreen() != null) {
+                    ((LazyScreen) child).getScreen().setOnLongClickListener(l);
+                }
             }
         }
 
 
         @Override
         public void computeScroll() {
-            if (scroller.computeScrollOffset()) {
+            if (pendingNavigationScreen != INVALID_SCREEN) {
+                // At most one retarget per frame, whatever the number of commands merged into it
+                final int screen = pendingNavigationScreen;
+                pendingNavigationScreen = INVALID_SCREEN;
+                retargetScroll(screen);
+            }
+            if (spring.isRunning()) {
+                final long start = System.nanoTime();
+                final boolean moving = spring.step(AnimationUtils.currentAnimationTimeMillis());
+                scrollTo(Math.round(spring.getPosition()), 0);
+                populateScreens();
+                stats.animationFrames++;
+                stats.animationNanos += System.nanoTime() - start;
+                if (moving) {
+                    invalidate();
+                }
+                else {
+                    // Settle now, no further frame is requested
+                    settleScroll();
+                }
+            } else if (scroller.computeScrollOffset()) {
+                final long start = System.nanoTime();
                 scrollTo(scroller.getCurrX(), scroller.getCurrY());
-                postInvalidate();
-            } else if (nextScreen != INVALID_SCREEN) {
-                currentScreen = Math.max(0, Math.min(nextScreen, getChildCount() - 1));
-                nextScreen = INVALID_SCREEN;
+                populateScreens();
+                stats.animationFrames++;
+                stats.animationNanos += System.nanoTime() - start;
+                invalidate();
+            } else if (jumpFromScreen != INVALID_SCREEN && jumpScroller.computeScrollOffset()) {
+                // The workspace already sits on the destination, only the slide of the jump is running
+                invalidate();
+            } else {
+                settleScroll();
             }
         }
 
         /**
-         * ViewGroup.dispatchDraw() supports many features we don't need: clip to padding, layout animation, animation
-         * listener, disappearing children, etc. The following implementation attempts to fast-track the drawing dispatch by
-         * drawing only what we know needs to be drawn.
+         * Make the screen a scroll was heading to the current screen, once the scroll is over
          */
-        @Override
-        protected void dispatchDraw(Canvas canvas) {
-            // First draw the wallpaper if needed
+        private void settleScroll() {
+            if (nextScreen == INVALID_SCREEN) {
+                return;
+            }
+            if (jumpFromScreen != INVALID_SCREEN) {
+                jumpFromScreen = INVALID_SCREEN;
+                invalidate();
+            }
+            currentScreen = Math.max(0, Math.min(nextScreen, getScreenCount() - 1));
+            nextScreen = INVALID_SCREEN;
+            populateScreens();
+            schedulePrefetch();
+            clearChildrenLayers();
+            endGesture();
+            approachedScreen = INVALID_SCREEN;
+            if (screenListener != null) {
+                screenListener.onScreenSettled(this, currentScreen);
+            }
+        }
 
-            if (wallpaper != null) {
-                float x = getScrollX() * wallpaperOffset;
-                if (x + wallpaperWidth < getRight() - getLeft()) {
-                    x = getRight() - getLeft() - wallpaperWidth;
-                }
-                canvas.drawBitmap(wallpaper, x, (getBottom() - getTop() - wallpaperHeight) / 2, paint);
+        /**
+         * Aim the running scroll at another screen, keeping its current speed
+         */
+        private void retargetScroll(int screen) {
+            if (screen == nextScreen) {
+                return;
+            }
+            if (!springAnimationEnabled && scroller.computeScrollOffset()) {
+                // Bring the scroll to this frame first, or the screens would stand still for a frame
+                scrollTo(scroller.getCurrX(), scroller.getCurrY());
+            }
+            // The spring keeps its own velocity, the scroller is restarted at its current speed
+            int velocity = springAnimationEnabled ? 0 : getScrollerVelocity();
+            final int delta = screen * getWidth() - getScrollX();
+            if (delta == 0 || (velocity > 0) != (delta > 0)) {
+                // A scroll heading away from the new screen cannot keep its speed
+                velocity = 0;
+            }
+            // The restarted curve starts at delta * (tension + 3) / duration, so its duration is derived from the
+            // speed alone: the bounds of a fling would change it. A nearly stopped scroll would crawl though, so it
+            // never takes more than twice a scroll started at rest. The velocity argument is the finger's, which moves
+            // opposite to the screens.
+            scrollToScreen(screen, false, -velocity, 0, Math.abs(delta) * 4);
+        }
+
+        /**
+         * @return The speed of the running scroller in pixels per second, 0 when it is not running
+         */
+        private int getScrollerVelocity() {
+            final int duration = scroller.getDuration();
+            if (scroller.isFinished() || duration <= 0) {
+                return 0;
             }
+            final float t = Math.min(1f, scroller.timePassed() / (float) duration);
+            final float slope = WorkspaceMath.overshootSlope(t, mScrollInterpolator.getTension());
+            return (int) ((scroller.getFinalX() - scroller.getStartX()) * slope * 1000 / duration);
+        }
 
-            // Determine if we need to draw every child or only the current screen
-            boolean fastDraw = touchState != TOUCH_STATE_SCROLLING && nextScreen == INVALID_SCREEN;
-            // If we are not scrolling or flinging, draw only the current screen
-            if (fastDraw) {
-                View v = getChildAt(currentScreen);
-                drawChild(canvas, v, getDrawingTime());
+        /**
+         * Queue a navigation command. A command received while the screens are moving is merged with the other
+         * commands received before the next frame into a single destination, and the scroll in flight is aimed at it
+         * on that frame instead of being restarted by every command.
+         * 
+         * @param screen The destination, relative to the last requested destination when relative is true
+         * @param relative
+         * @return Whether the destination is a screen
+         */
+        private boolean navigate(int screen, boolean relative) {
+            int base = pendingNavigationScreen;
+            if (base == INVALID_SCREEN) {
+                base = nextScreen != INVALID_SCREEN ? nextScreen : currentScreen;
+            }
+            final int target = relative ? base + screen : screen;
+            if (target < 0 || target >= getScreenCount()) {
+                return false;
+            }
+            if (isScrollAnimating() || jumpFromScreen != INVALID_SCREEN) {
+                pendingNavigationScreen = target;
+                invalidate();
             }
             else {
-                final long drawingTime = getDrawingTime();
-                // If we are flinging, draw only the current screen and the target screen
-                if (nextScreen >= 0 && nextScreen < getChildCount() && Math.abs(currentScreen - nextScreen) == 1) {
-                    drawChild(canvas, getChildAt(currentScreen), drawingTime);
-                    drawChild(canvas, getChildAt(nextScreen), drawingTime);
-                }
-                else {
-                    // If we are scrolling, draw all of our children
-                    final int count = getChildCount();
-                    for (int i = 0; i < count; i++) {
-                        drawChild(canvas, getChildAt(i), drawingTime);
-                    }
-                }
+                scrollToScreen(target);
             }
-            updateTabIndicator();
-            canvas.drawBitmap(bitmap, getScrollX(), getMeasuredHeight()*(100-TAB_INDICATOR_HEIGHT_PCT)/100, paint);
-
+            return true;
         }
 
+        /**
+         * @return Whether the screens are moving by themselves
+         */
+        private boolean isScrollAnimating() {
+            return !scroller.isFinished() || spring.isRunning();
+        }
 
         /**
-         * Measure the workspace AND also children
+         * ViewGroup.dispatchDraw() supports many features we don't need: clip to padding, layout animation, animation
+         * listener, disappearing children, etc. The following implementation attempts to fast-track the drawing dispatch by
+         * drawing only the screens which are visible.
          */
         @Override
-        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-
-            final int width = MeasureSpec.getSize(widthMeasureSpec);
-            final int height = MeasureSpec.getSize(heightMeasureSpec);
-    //      Log.d("workspace","Height is " + height);
-            final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
-            if (widthMode != MeasureSpec.EXACTLY) {
-                throw new IllegalStateException("Workspace can only be used in EXACTLY mode.");
+        protected void dispatchDraw(Canvas canvas) {
+            final long drawingTime = getDrawingTime();
+            final int width = getRight() - getLeft();
+            final int height = getBottom() - getTop();
+            final int visibleLeft = getScrollX();
+            final int visibleRight = visibleLeft + width;
+            int framePixels = 0;
+            if (wallpaper == null && wallpaperSource != null && wallpaperLoader == null
+                    && SystemClock.uptimeMillis() >= wallpaperRetryTime) {
+                // Released under memory pressure or not fitted yet, fit it again
+                startWallpaperLoader(width, height);
             }
 
-            final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
-            if (heightMode != MeasureSpec.EXACTLY) {
-                throw new IllegalStateException("Workspace can only be used in EXACTLY mode.");
+            // First draw the wallpaper if needed, only where no opaque screen covers it
+            if (wallpaper != null || tiledWallpaper != null) {
+                final float x = getWallpaperX(getScrollX(), width);
+                final int y = (height - wallpaperHeight) / 2;
+                int clipLeft = visibleLeft;
+                int clipRight = visibleRight;
+                if (jumpFromScreen == INVALID_SCREEN && !overviewMode) {
+                    // The screens are full height columns above the opaque indicator bar, so at most one uncovered
+                    // column remains on screen
+                    final int coveredBottom = height - TabIndicator.getHeight(height);
+                    final int count = getChildCount();
+                    for (int i = 0; i < count && clipLeft < clipRight; i++) {
+                        final View child = getChildAt(i);
+                        if (child.getVisibility() != VISIBLE || !child.isOpaque() || child.getTop() > 0
+                                || child.getBottom() < coveredBottom) {
+                            continue;
+                        }
+                        if (child.getLeft() <= clipLeft) {
+                            clipLeft = Math.max(clipLeft, child.getRight());
+                        }
+                        else if (child.getRight() >= clipRight) {
+                            clipRight = Math.min(clipRight, child.getLeft());
+                        }
+                    }
+                }
+                final boolean clipped = clipLeft > visibleLeft || clipRight < visibleRight;
+                if (clipLeft >= clipRight) {
+                    stats.wallpaperSkips++;
+                }
+                else if (clipped) {
+                    canvas.save();
+                    canvas.clipRect(clipLeft, 0, clipRight, height);
+                }
+                if (tiledWallpaper != null) {
+                    // Only the uncovered tiles are drawn, but the visible ones are still loaded ahead
+                    tiledWallpaper.draw(canvas, x, y, visibleLeft, width, clipLeft, clipRight);
+                }
+                else if (clipLeft < clipRight) {
+                    canvas.drawBitmap(wallpaper, x, y, paint);
+                }
+                if (clipLeft < clipRight) {
+                    if (clipped) {
+                        canvas.restore();
+                    }
+                    framePixels += (clipRight - clipLeft) * Math.min(height, wallpaperHeight);
+                }
             }
 
-            // The children are given the same width and height as the workspace
-            final int count = getChildCount();
-            for (int i = 0; i < count; i++) {
-                int adjustedHeightMeasureSpec = MeasureSpec.makeMeasureSpec(height*(100-TAB_INDICATOR_HEIGHT_PCT)/100, heightMode);
-                getChildAt(i).measure(widthMeasureSpec,adjustedHeightMeasureSpec);
-
+            // Draw only the screens intersecting the visible window, which is at most two whatever the scroll or fling
+            int drawn = 0;
+            if (overviewMode) {
+                drawn = drawOverview(canvas, visibleLeft, width, height);
+                framePixels += drawn * overviewRect.width() * overviewRect.height();
             }
-
-            // Compute wallpaper
-            if (wallpaperLoaded) {
-                wallpaperLoaded = false;
-                wallpaper = centerToFit(wallpaper, width, height, getContext());
-                wallpaperWidth = wallpaper.getWidth();
-                wallpaperHeight = wallpaper.getHeight();
+            else if (jumpFromScreen != INVALID_SCREEN) {
+                drawn = drawJump(canvas, drawingTime);
+                // The two screens slide side by side, together they fill the visible window
+                framePixels += drawn > 0 ? width * height : 0;
             }
-            wallpaperOffset = wallpaperWidth > width ? (count * width - wallpaperWidth) / ((count - 1) * (float) width) : 1.0f;
-            if (firstWallpaperLayout) {
-                scrollTo(currentScreen * width, 0);
-                firstWallpaperLayout = false;
+            else {
+                final int count = getChildCount();
+                for (int i = 0; i < count; i++) {
+                    final View child = getChildAt(i);
+                    if (child.getVisibility() == VISIBLE && child.getRight() > visibleLeft
+                            && child.getLeft() < visibleRight) {
+                        drawChild(canvas, child, drawingTime);
+                        drawn++;
+                        framePixels += (Math.min(child.getRight(), visibleRight)
+                                - Math.max(child.getLeft(), visibleLeft))
+                                * (Math.min(child.getBottom(), height) - Math.max(child.getTop(), 0));
+                    }
+                }
+            }
+            if (snapshots != null && !snapshots.isEmpty() && jumpFromScreen == INVALID_SCREEN && !overviewMode) {
+                drawSnapshots(canvas, visibleLeft, visibleRight, width, height);
+            }
+            stats.framePixelsDrawn = framePixels;
+            stats.pixelsDrawn += framePixels;
+            stats.drawPasses++;
+            stats.screensDrawn += drawn;
+            if (gestureStatsListener != null && gestureStats.isActive()) {
+                // A running animation requests the next frame, a drag requests its frames when it scrolls
+                gestureStats.onFrame(System.nanoTime(), drawn, isScrollAnimating()
+                        || (jumpFromScreen != INVALID_SCREEN && !jumpScroller.isFinished()));
             }
-
-    //      Log.d("workspace","Top is "+getTop()+", bottom is "+getBottom()+", left is "+getLeft()+", right is "+getRight());
-
             updateTabIndicator();
-            invalidate();
+            tabIndicator.draw(canvas);
         }
 
-        Bitmap bitmap;
-
-        private OnLoadListener load;
-
 
-    private int lastEvHashCode;
-
-        private void updateTabIndicator(){
-            int width = getMeasuredWidth();
-            int height = getMeasuredHeight();
-
-            //For drawing in its own bitmap:
-            bar = new RectF(0, 0, width, (TAB_INDICATOR_HEIGHT_PCT*height/100));
-
-            int startPos = getScrollX()/(getChildCount());
-            selectedTab = new RectF(startPos, 0, startPos+width/getChildCount(), (TAB_INDICATOR_HEIGHT_PCT*height/100));
+        /**
+         * Draw every screen from its thumbnail in a grid filling the visible window. At most one stale thumbnail is
+         * drawn again per frame, so that entering the overview or updating many screens never blocks a frame.
+         * 
+         * @return The number of thumbnails drawn
+         */
+        private int drawOverview(Canvas canvas, int visibleLeft, int width, int height) {
+            final int count = getScreenCount();
+            if (count == 0 || width <= 0 || height <= 0) {
+                return 0;
+            }
+            final int columns = WorkspaceMath.overviewColumns(count);
+            final int rows = (count + columns - 1) / columns;
+            final int cellWidth = width / columns;
+            final int cellHeight = height / rows;
+            boolean refreshed = false;
+            boolean pending = false;
+            int drawn = 0;
+            for (int screen = 0; screen < count; screen++) {
+                getOverviewRect(screen, columns, cellWidth, cellHeight, width, height);
+                overviewRect.offset(visibleLeft, 0);
+                if (thumbnails.needsRefresh(screen)) {
+                    final View view = getScreenAt(screen);
+                    if (!refreshed && isScreenReady(view)) {
+                        thumbnails.refresh(screen, view, overviewRect.width(), overviewRect.height(), count);
+                        refreshed = true;
+                    }
+                    else {
+                        pending |= isScreenReady(view);
+                    }
+                }
+                final Bitmap thumbnail = thumbnails.get(screen);
+                if (thumbnail != null) {
+                    canvas.drawBitmap(thumbnail, null, overviewRect, paint);
+                    drawn++;
+                }
+                else {
+                    canvas.drawRect(overviewRect, overviewPlaceholderPaint);
+                }
+                if (screen == currentScreen) {
+                    canvas.drawRect(overviewRect, overviewFramePaint);
+                }
+            }
+            if (pending) {
+                invalidate();
+            }
+            return drawn;
+        }
 
-            bitmap = Bitmap.createBitmap(width, (TAB_INDICATOR_HEIGHT_PCT*height/100), Bitmap.Config.ARGB_8888);
-            canvas = new Canvas(bitmap);
-            canvas.drawRoundRect(bar,0,0, tabIndicatorBackgroundPaint);
-            canvas.drawRoundRect(selectedTab, 5,5, selectedTabPaint);
+        /**
+         * Compute into overviewRect where a screen is shown in the overview, relative to the visible window: centered in
+         * its cell with a small margin, keeping the proportions of the workspace
+         */
+        private void getOverviewRect(int screen, int columns, int cellWidth, int cellHeight, int width, int height) {
+            final int margin = Math.min(cellWidth, cellHeight) / 16;
+            final float scale = Math.min((cellWidth - 2 * margin) / (float) width,
+                    (cellHeight - 2 * margin) / (float) height);
+            final int thumbnailWidth = (int) (width * scale);
+            final int thumbnailHeight = (int) (height * scale);
+            final int left = (screen % columns) * cellWidth + (cellWidth - thumbnailWidth) / 2;
+            final int top = (screen / columns) * cellHeight + (cellHeight - thumbnailHeight) / 2;
+            overviewRect.set(left, top, left + thumbnailWidth, top + thumbnailHeight);
         }
 
         /**
-         * Overrided method to layout child
+         * Return the screen whose thumbnail is under a point of the overview, or INVALID_SCREEN
          */
-        @Override
-        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-            int childLeft = 0;
-            final int count = getChildCount();
-            for (int i = 0; i < count; i++) {
-                final View child = getChildAt(i);
-                if (child.getVisibility() != View.GONE) {
-                    final int childWidth = child.getMeasuredWidth();
-                    child.layout(childLeft, 0, childLeft + childWidth, child.getMeasuredHeight());
-                    childLeft += childWidth;
-                }
+        private int getOverviewScreenAt(float x, float y) {
+            final int count = getScreenCount();
+            final int width = getWidth();
+            final int height = getHeight();
+            if (count == 0 || width <= 0 || height <= 0) {
+                return INVALID_SCREEN;
             }
-            if (load!=null) {
-            	load.onLoad();
+            final int columns = WorkspaceMath.overviewColumns(count);
+            final int rows = (count + columns - 1) / columns;
+            final int cellWidth = width / columns;
+            final int cellHeight = height / rows;
+            final int screen = ((int) y / cellHeight) * columns + (int) x / cellWidth;
+            if (x < 0 || y < 0 || screen >= count) {
+                return INVALID_SCREEN;
             }
+            getOverviewRect(screen, columns, cellWidth, cellHeight, width, height);
+            return overviewRect.contains((int) x, (int) y) ? screen : INVALID_SCREEN;
         }
 
-        @Override
-        public boolean dispatchUnhandledMove(View focused, int direction) {
-            if (direction == View.FOCUS_LEFT) {
-                if (getCurrentScreen() > 0) {
-                    scrollToScreen(getCurrentScreen() - 1);
-                    return true;
+        /**
+         * A tap on a thumbnail leaves the overview on its screen
+         */
+        private void handleOverviewTouch(MotionEvent ev) {
+            switch (ev.getAction() & MotionEvent.ACTION_MASK) {
+            case MotionEvent.ACTION_DOWN:
+                overviewDownX = ev.getX();
+                overviewDownY = ev.getY();
+                break;
+            case MotionEvent.ACTION_UP:
+                if (Math.abs(ev.getX() - overviewDownX) > touchSlop || Math.abs(ev.getY() - overviewDownY) > touchSlop) {
+                    break;
                 }
-            }
-            else if (direction == View.FOCUS_RIGHT) {
-                if (getCurrentScreen() < getChildCount() - 1) {
-                    scrollToScreen(getCurrentScreen() + 1);
-                    return true;
+                final int screen = getOverviewScreenAt(ev.getX(), ev.getY());
+                if (screen != INVALID_SCREEN) {
+                    setOverviewMode(false);
+                    scrollToScreenImmediate(screen);
                 }
+                break;
             }
-            return super.dispatchUnhandledMove(focused, direction);
         }
 
         /**
-         * This method JUST determines whether we want to intercept the motion. If we return true, onTouchEvent will be called
-         * and we do the actual scrolling there.
+         * Show all the screens at once, each drawn from a downscaled thumbnail, or go back to the current screen. A
+         * thumbnail is only drawn again after its screen has been invalidated. Tapping a thumbnail leaves the overview
+         * on its screen. With an adapter, only the attached screens have a thumbnail.
+         * 
+         * @param enabled
          */
-        @Override
-        public boolean onInterceptTouchEvent(MotionEvent ev) {
-            Log.d("workspace","Intercepted a touch event");
-            if (locked) {
-                return true;
+        public void setOverviewMode(boolean enabled) {
+            if (enabled == overviewMode) {
+                return;
             }
+            overviewMode = enabled;
+            if (enabled && thumbnails == null) {
+                thumbnails = new ScreenThumbnails();
+                thumbnails.setByteBudget(thumbnailBudget);
+                overviewFramePaint = new Paint();
+                overviewFramePaint.setStyle(Paint.Style.STROKE);
+                overviewFramePaint.setStrokeWidth(2);
+                overviewFramePaint.setColor(Color.WHITE);
+                overviewPlaceholderPaint = new Paint();
+                overviewPlaceholderPaint.setColor(0x40FFFFFF);
+            }
+            invalidate();
+        }
 
-            /*
+        public boolean isOverviewMode() {
+            return overviewMode;
+        }
+
+        /**
+         * Set the maximum number of bytes used by the thumbnails of the overview. The thumbnails get smaller when there
+         * are too many screens for the budget.
+         * 
+         * @param bytes
+         */
+        public void setOverviewThumbnailBudget(int bytes) {
+            thumbnailBudget = bytes;
+            if (thumbnails != null) {
+                thumbnails.setByteBudget(bytes);
+            }
+        }
+
+        /**
+         * Mark the thumbnail of a screen as stale when one of its views is invalidated with hardware acceleration, from
+         * API level 26
+         */
+        @Override
+        public void onDescendantInvalidated(View child, View target) {
+            super.onDescendantInvalidated(child, target);
+            invalidateThumbnail(child.getLeft());
+        }
+
+        /**
+         * Mark the thumbnail of a screen as stale when one of its views is invalidated without hardware acceleration, or
+         * before API level 26
+         */
+        @Override
+        public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+            // The location is the position of the screen containing the invalidated view
+            invalidateThumbnail(location[0]);
+            return super.invalidateChildInParent(location, dirty);
+        }
+
+        /**
+         * Mark the thumbnail of the screen at a position as stale
+         */
+        private void invalidateThumbnail(int left) {
+            final int width = getWidth();
+            // In the overview, the dirty area of the screen is not where its thumbnail is drawn, so the whole workspace
+            // is redrawn
+            if (thumbnails != null && width > 0 && thumbnails.invalidate(left / width) && overviewMode) {
+                invalidate();
+            }
+        }
+
+        /**
+         * Return where the wallpaper is drawn for a scroll position
+         */
+        private float getWallpaperX(int scrollX, int width) {
+            final float x = scrollX * wallpaperOffset;
+            return x + wallpaperWidth < width ? width - wallpaperWidth : x;
+        }
+
+        /**
+         * Draw the snapshots of the visible screens which are not ready yet, and drop those of the screens which are
+         */
+        private void drawSnapshots(Canvas canvas, int visibleLeft, int visibleRight, int width, int height) {
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+            final int last = Math.min(getScreenCount() - 1, (visibleRight - 1) / width);
+            for (int screen = Math.max(0, visibleLeft / width); screen <= last; screen++) {
+                final Bitmap snapshot = snapshots.get(screen);
+                if (snapshot == null) {
+                    continue;
+                }
+                // A snapshot taken in another orientation would be distorted
+                final boolean sameShape = Math.abs(snapshot.getWidth() * height - snapshot.getHeight() * width) <= width
+                        * height / 50;
+                if (!sameShape || isScreenReady(getScreenAt(screen))) {
+                    snapshots.release(screen);
+                    continue;
+                }
+                snapshotRect.set(screen * width, 0, (screen + 1) * width, height);
+                canvas.drawBitmap(snapshot, null, snapshotRect, paint);
+            }
+        }
+
+        /**
+         * Return whether a screen has been created and laid out, so that its snapshot is no longer needed
+         */
+        private static boolean isScreenReady(View screen) {
+            if (screen == null || screen.getWidth() == 0 || screen.isLayoutRequested()) {
+                return false;
+            }
+            return !(screen instanceof LazyScreen) || ((LazyScreen) screen).getScreen() != null;
+        }
+
+        /**
+         * Draw a running jump: the source screen slides out while the destination screen slides in. The screens in
+         * between are never drawn.
+         * 
+         * @return The number of screens drawn
+         */
+        private int drawJump(Canvas canvas, long drawingTime) {
+            final int width = getRight() - getLeft();
+            final float progress = jumpScroller.getCurrX() / (float) JUMP_RANGE;
+            final int direction = nextScreen > jumpFromScreen ? 1 : -1;
+            int drawn = 0;
+            final View from = getScreenAt(jumpFromScreen);
+            if (from != null && from.getVisibility() == VISIBLE && progress < 1f) {
+                // Move the source screen from its own position to the visible window, then slide it out
+                canvas.save();
+                canvas.translate(getScrollX() - from.getLeft() - progress * width * direction, 0);
+                drawChild(canvas, from, drawingTime);
+                canvas.restore();
+                drawn++;
+            }
+            final View to = getScreenAt(nextScreen);
+            if (to != null && to.getVisibility() == VISIBLE) {
+                canvas.save();
+                canvas.translate(getScrollX() - to.getLeft() + (1f - progress) * width * direction, 0);
+                drawChild(canvas, to, drawingTime);
+                canvas.restore();
+                drawn++;
+            }
+            return drawn;
+        }
+
+        /**
+         * Measure the workspace AND also children
+         */
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            stats.measurePasses++;
+
+            final int width = MeasureSpec.getSize(widthMeasureSpec);
+            final int height = MeasureSpec.getSize(heightMeasureSpec);
+    //      Log.d("workspace","Height is " + height);
+            final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+            if (widthMode != MeasureSpec.EXACTLY) {
+                throw new IllegalStateException("Workspace can only be used in EXACTLY mode.");
+            }
+
+            final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+            if (heightMode != MeasureSpec.EXACTLY) {
+                throw new IllegalStateException("Workspace can only be used in EXACTLY mode.");
+            }
+
+            // The children are given the same width and height as the workspace
+            final int adjustedHeightMeasureSpec = MeasureSpec.makeMeasureSpec(height - TabIndicator.getHeight(height), heightMode);
+            final boolean specsChanged = widthMeasureSpec != childWidthMeasureSpec
+                    || adjustedHeightMeasureSpec != childHeightMeasureSpec;
+            childWidthMeasureSpec = widthMeasureSpec;
+            childHeightMeasureSpec = adjustedHeightMeasureSpec;
+            final int childCount = getChildCount();
+            for (int i = 0; i < childCount; i++) {
+                final View child = getChildAt(i);
+                // With the same specs, only new screens and screens which requested a layout need to be measured
+                if (specsChanged || child.isLayoutRequested() || child.getMeasuredWidth() != width) {
+                    child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+                    stats.childMeasures++;
+                }
+            }
+
+            // Compute wallpaper, fitting it again in the background if the size changed
+            startWallpaperLoader(width, height);
+            if (tiledWallpaper != null) {
+                tiledWallpaper.setViewHeight(height);
+            }
+            updateWallpaperOffset(width);
+            if (firstWallpaperLayout) {
+                scrollTo(currentScreen * width, 0);
+                firstWallpaperLayout = false;
+            }
+
+    //      Log.d("workspace","Top is "+getTop()+", bottom is "+getBottom()+", left is "+getLeft()+", right is "+getRight());
+
+            updateTabIndicator();
+            invalidate();
+        }
+
+        private OnLoadListener load;
+        private WorkspaceLayoutListener layoutListener;
+        // The hierarchy listener set by the user, called by our own
+        private OnHierarchyChangeListener hierarchyChangeListener;
+        // Incremented each time the set of screens changes
+        private int screensVersion;
+        // The state reported by the last layout, to notify only what changed
+        private boolean firstLayoutDone;
+        private int laidOutWidth;
+        private int laidOutHeight;
+        private int laidOutScreensVersion;
+
+
+    private int lastEvHashCode;
+
+        private void updateTabIndicator(){
+            // Only recomputes the indicator geometry if the scroll, the screen count or the size changed
+            tabIndicator.update(getScrollX(), getScreenCount(), getMeasuredWidth(), getMeasuredHeight());
+        }
+
+        /**
+         * Overrided method to layout child
+         */
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            stats.layoutPasses++;
+            if (adapter != null) {
+                // Attached screens are laid out at the position of their logical index
+                final int count = attachedScreens.size();
+                for (int i = 0; i < count; i++) {
+                    final View child = attachedScreens.valueAt(i);
+                    final int childLeft = attachedScreens.keyAt(i) * (right - left);
+                    if (changed || needsLayout(child, childLeft)) {
+                        layoutScreen(child, attachedScreens.keyAt(i), right - left);
+                    }
+                }
+            }
+            else {
+                // Only the screens which moved, because one was added or removed before them, or which requested a
+                // layout are laid out again, unless the workspace itself changed
+                int childLeft = 0;
+                final int count = getChildCount();
+                for (int i = 0; i < count; i++) {
+                    final View child = getChildAt(i);
+                    if (child.getVisibility() != View.GONE) {
+                        final int childWidth = child.getMeasuredWidth();
+                        if (changed || needsLayout(child, childLeft)) {
+                            child.layout(childLeft, 0, childLeft + childWidth, child.getMeasuredHeight());
+                            stats.childLayouts++;
+                        }
+                        childLeft += childWidth;
+                    }
+                }
+            }
+            if (load!=null) {
+            	load.onLoad();
+            }
+            notifyLayoutChanges(right - left, bottom - top);
+        }
+
+        /**
+         * Notify the layout listener of what changed since the last layout
+         */
+        private void notifyLayoutChanges(int width, int height) {
+            if (!firstLayoutDone) {
+                firstLayoutDone = true;
+                laidOutWidth = width;
+                laidOutHeight = height;
+                laidOutScreensVersion = screensVersion;
+                stats.firstLayouts++;
+                if (layoutListener != null) {
+                    layoutListener.onFirstLayout(this);
+                }
+                return;
+            }
+            if (width != laidOutWidth || height != laidOutHeight) {
+                laidOutWidth = width;
+                laidOutHeight = height;
+                stats.sizeChanges++;
+                if (thumbnails != null) {
+                    thumbnails.invalidateAll();
+                }
+                if (layoutListener != null) {
+                    layoutListener.onSizeChanged(this, width, height);
+                }
+            }
+            if (screensVersion != laidOutScreensVersion) {
+                laidOutScreensVersion = screensVersion;
+                stats.screenSetChanges++;
+                if (thumbnails != null) {
+                    thumbnails.invalidateAll();
+                }
+                if (layoutListener != null) {
+                    layoutListener.onScreensChanged(this, getScreenCount());
+                }
+            }
+        }
+
+        /**
+         * Counts the changes of the screens added as children. With an adapter, children are attached and detached while
+         * scrolling without changing the screens, so the adapter changes are counted instead.
+         */
+        private final OnHierarchyChangeListener screensChangeListener = new OnHierarchyChangeListener() {
+            public void onChildViewAdded(View parent, View child) {
+                if (adapter == null) {
+                    screensVersion++;
+                }
+                if (hierarchyChangeListener != null) {
+                    hierarchyChangeListener.onChildViewAdded(parent, child);
+                }
+            }
+
+            public void onChildViewRemoved(View parent, View child) {
+                if (adapter == null) {
+                    screensVersion++;
+                }
+                if (hierarchyChangeListener != null) {
+                    hierarchyChangeListener.onChildViewRemoved(parent, child);
+                }
+            }
+        };
+
+        @Override
+        public void setOnHierarchyChangeListener(OnHierarchyChangeListener listener) {
+            hierarchyChangeListener = listener;
+        }
+
+        @Override
+        public boolean dispatchUnhandledMove(View focused, int direction) {
+            if (direction == View.FOCUS_LEFT) {
+                if (navigate(-1, true)) {
+                    return true;
+                }
+            }
+            else if (direction == View.FOCUS_RIGHT) {
+                if (navigate(1, true)) {
+                    return true;
+                }
+            }
+            return super.dispatchUnhandledMove(focused, direction);
+        }
+
+        /**
+         * This method JUST determines whether we want to intercept the motion. If we return true, onTouchEvent will be called
+         * and we do the actual scrolling there.
+         */
+        @Override
+        public boolean onInterceptTouchEvent(MotionEvent ev) {
+            if (locked || overviewMode) {
+                return true;
+            }
+
+            /*
              * Shortcut the most recurring case: the user is in the dragging state and he is moving his finger. We want to
              * intercept this motion.
              */
             final int action = ev.getAction();
+            if (WorkspaceTrace.ENABLED) {
+                WorkspaceTrace.record(WorkspaceTrace.EVENT_INTERCEPT, action, touchState);
+            }
             if ((action == MotionEvent.ACTION_MOVE) && (touchState != TOUCH_STATE_REST)) {
                 return true;
             }
@@ -442,7 +1355,12 @@ import android.widget.Scroller;
                  * If being flinged and user touches the screen, initiate drag; otherwise don't. mScroller.isFinished should be
                  * false when being flinged.
                  */
-                touchState = scroller.isFinished() ? TOUCH_STATE_REST : TOUCH_STATE_SCROLLING;
+                // A touch lands the workspace on the destination of a jump at once
+                finishJump();
+                touchState = isScrollAnimating() ? TOUCH_STATE_SCROLLING : TOUCH_STATE_REST;
+                if (touchState == TOUCH_STATE_SCROLLING) {
+                    beginGesture(GestureStats.GESTURE_SWIPE);
+                }
                 break;
 
             case MotionEvent.ACTION_CANCEL:
@@ -482,8 +1400,16 @@ import android.widget.Scroller;
                 if (xMoved && !yMoved) {
                     //Log.d("workspace","Detected X move.  Scrolling.");
                     // Scroll if the user moved far enough along the X axis
+                    if (WorkspaceTrace.ENABLED) {
+                        WorkspaceTrace.record(WorkspaceTrace.EVENT_STATE, touchState, TOUCH_STATE_SCROLLING);
+                    }
                     touchState = TOUCH_STATE_SCROLLING;
                     lastMotionX = x;
+                    enableChildrenLayers();
+                    schedulePrefetch();
+                    beginGesture(GestureStats.GESTURE_SWIPE);
+                    approachedScreen = INVALID_SCREEN;
+                    touchPredictor.reset();
                 }
                 // Either way, cancel any pending longpress
                 if (allowLongPress) {
@@ -491,8 +1417,10 @@ import android.widget.Scroller;
                     // Try canceling the long press. It could also have been scheduled
                     // by a distant descendant, so use the mAllowLongPress flag to block
                     // everything
-                    final View currentView = getChildAt(currentScreen);
-                    currentView.cancelLongPress();
+                    final View currentView = getScreenAt(currentScreen);
+                    if (currentView != null) {
+                        currentView.cancelLongPress();
+                    }
                 }
             }
         }
@@ -508,6 +1436,7 @@ import android.widget.Scroller;
                 final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
                 lastMotionX = ev.getX(newPointerIndex);
                 lastMotionY = ev.getY(newPointerIndex);
+                touchPredictor.reset();
                 mActivePointerId = ev.getPointerId(newPointerIndex);
                 if (mVelocityTracker != null) {
                     mVelocityTracker.clear();
@@ -524,6 +1453,10 @@ import android.widget.Scroller;
             if (locked) {
                 return true;
             }
+            if (overviewMode) {
+                handleOverviewTouch(ev);
+                return true;
+            }
             if (mVelocityTracker == null) {
                 mVelocityTracker = VelocityTracker.obtain();
             }
@@ -545,11 +1478,22 @@ import android.widget.Scroller;
                      * If being flinged and user touches, stop the fling. isFinished will be false if being flinged.
                      */
                     if (!scroller.isFinished()) {
-                        scroller.abortAnimation();
+                        // Stop where the screens are rather than at the end of the scroll
+                        scroller.forceFinished(true);
                     }
+                    spring.stop();
+                    pendingNavigationScreen = INVALID_SCREEN;
+                    // The destination is abandoned: the screen under the finger becomes the current one, and the drag
+                    // must not settle on the destination meanwhile
+                    nextScreen = INVALID_SCREEN;
+                    currentScreen = Math.max(0, Math.min(WorkspaceMath.snapScreen(getScrollX(), getWidth()),
+                            getScreenCount() - 1));
+                    approachedScreen = INVALID_SCREEN;
+                    populateScreens();
 
                     // Remember where the motion event started
                     lastMotionX = x;
+                    touchPredictor.reset();
                     mActivePointerId = ev.getPointerId(0);
                 } 
                 break;
@@ -563,7 +1507,9 @@ import android.widget.Scroller;
                     //We need to do the work of interceptTouchEvent here because we don't intercept the move
                     //on children who don't scroll.
 
-                    Log.d("workspace","handling move from onTouch");
+                    if (WorkspaceTrace.ENABLED) {
+                        WorkspaceTrace.record(WorkspaceTrace.EVENT_TOUCH, action, touchState);
+                    }
 
                     if(onInterceptTouchEvent(ev) && touchState == TOUCH_STATE_SCROLLING){
                         handleScrollMove(ev);
@@ -575,20 +1521,29 @@ import android.widget.Scroller;
             case MotionEvent.ACTION_UP:
     //          Log.d("workspace","caught an up touch event");
                 if (touchState == TOUCH_STATE_SCROLLING) {
+                    // The swipe ends, the screens now settle by themselves
+                    beginGesture(GestureStats.GESTURE_FLING);
                     final VelocityTracker velocityTracker = mVelocityTracker;
                     velocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
                     int velocityX = (int) velocityTracker.getXVelocity();
 
-                    if (velocityX > SNAP_VELOCITY && currentScreen > 0) {
-                        // Fling hard enough to move left
-                        scrollToScreen(currentScreen - 1);
-                    }
-                    else if (velocityX < -SNAP_VELOCITY && currentScreen < getChildCount() - 1) {
-                        // Fling hard enough to move right
-                        scrollToScreen(currentScreen + 1);
+                    if (projectedFlingEnabled) {
+                        final int whichScreen = WorkspaceMath.projectedFlingScreen(velocityX, SNAP_VELOCITY,
+                                flingDeceleration, currentScreen, getScreenCount(), getScrollX(), getWidth());
+                        scrollToScreen(whichScreen, false, Math.abs(velocityX) > SNAP_VELOCITY ? velocityX : 0);
                     }
                     else {
-                        snapToDestination();
+                        final int whichScreen = WorkspaceMath.flingScreen(velocityX, SNAP_VELOCITY, currentScreen,
+                                getScreenCount(), getScrollX(), getWidth());
+                        if (whichScreen != currentScreen - 1 && whichScreen != currentScreen + 1) {
+                            snapToDestination();
+                        }
+                        else {
+                            scrollToScreen(whichScreen);
+                        }
+                    }
+                    if (WorkspaceTrace.ENABLED) {
+                        WorkspaceTrace.record(WorkspaceTrace.EVENT_FLING, currentScreen, nextScreen, velocityX);
                     }
 
                     if (mVelocityTracker != null) {
@@ -600,12 +1555,19 @@ import android.widget.Scroller;
                 mActivePointerId = INVALID_POINTER;
                 break;
             case MotionEvent.ACTION_CANCEL:
-                Log.d("workspace","caught a cancel touch event");
+                if (WorkspaceTrace.ENABLED) {
+                    WorkspaceTrace.record(WorkspaceTrace.EVENT_TOUCH, action, touchState);
+                }
+                if (touchState == TOUCH_STATE_SCROLLING) {
+                    endGesture();
+                }
                 touchState = TOUCH_STATE_REST;
                 mActivePointerId = INVALID_POINTER;
                 break;
             case MotionEvent.ACTION_POINTER_UP:
-                Log.d("workspace","caught a pointer up touch event");
+                if (WorkspaceTrace.ENABLED) {
+                    WorkspaceTrace.record(WorkspaceTrace.EVENT_TOUCH, action, touchState);
+                }
                 onSecondaryPointerUp(ev);
                 break;
             }
@@ -616,7 +1578,13 @@ import android.widget.Scroller;
         private void handleScrollMove(MotionEvent ev){
             // Scroll to follow the motion event
             final int pointerIndex = ev.findPointerIndex(mActivePointerId);
-            final float x1 = ev.getX(pointerIndex);
+            // Feed the samples batched since the previous move event, then the latest one
+            final int historySize = ev.getHistorySize();
+            for (int h = 0; h < historySize; h++) {
+                touchPredictor.addSample(ev.getHistoricalX(pointerIndex, h), ev.getHistoricalEventTime(h));
+            }
+            touchPredictor.addSample(ev.getX(pointerIndex), ev.getEventTime());
+            final float x1 = touchPredictor.predict(touchPredictionMillis, touchSlop);
             final int deltaX = (int) (lastMotionX - x1);
             lastMotionX = x1;
 
@@ -624,26 +1592,47 @@ import android.widget.Scroller;
                 if (getScrollX() > 0) {
                     //Scrollby invalidates automatically
                     scrollBy(Math.max(-getScrollX(), deltaX), 0);
+                    requestGestureFrame();
+                    populateScreens();
+                    schedulePrefetch();
+                    notifyScreenApproaching(currentScreen - 1);
                 }
             }
             else if (deltaX > 0) {
-                final int availableToScroll = getChildAt(getChildCount() - 1).getRight() - getScrollX() - getWidth();
+                final int scrollRight = adapter != null ? getScreenCount() * getWidth() : getChildAt(getChildCount() - 1).getRight();
+                final int availableToScroll = scrollRight - getScrollX() - getWidth();
                 if (availableToScroll > 0) {
                     //Scrollby invalidates automatically
                     scrollBy(Math.min(availableToScroll, deltaX), 0);
+                    requestGestureFrame();
+                    populateScreens();
+                    schedulePrefetch();
+                    notifyScreenApproaching(currentScreen + 1);
                 }
             } else {
                 awakenScrollBars();
             }
         }
 
+        /**
+         * Report the neighbour a drag moves toward, once per direction
+         */
+        private void notifyScreenApproaching(int screen) {
+            if (screenListener == null || screen == approachedScreen || screen < 0 || screen >= getScreenCount()) {
+                return;
+            }
+            approachedScreen = screen;
+            screenListener.onScreenApproaching(this, screen);
+        }
+
         /**
          * Scroll to the appropriated screen depending of the current position
          */
         private void snapToDestination() {
-            final int screenWidth = getWidth();
-            final int whichScreen = (getScrollX() + (screenWidth / 2)) / screenWidth;
-            Log.d("workspace", "snapToDestination");
+            final int whichScreen = WorkspaceMath.snapScreen(getScrollX(), getWidth());
+            if (WorkspaceTrace.ENABLED) {
+                WorkspaceTrace.record(WorkspaceTrace.EVENT_SNAP, whichScreen, getScrollX());
+            }
             scrollToScreen(whichScreen);
         }
 
@@ -657,24 +1646,227 @@ import android.widget.Scroller;
         }
 
         private void scrollToScreen(int whichScreen, boolean immediate){
-            Log.d("workspace", "snapToScreen=" + whichScreen);
+            scrollToScreen(whichScreen, immediate, 0);
+        }
+
+        private void scrollToScreen(int whichScreen, boolean immediate, int velocityX){
+            scrollToScreen(whichScreen, immediate, velocityX, MIN_FLING_DURATION, MAX_FLING_DURATION);
+        }
 
+        /**
+         * Scroll to a specific screen, immediately or animated
+         * 
+         * @param whichScreen
+         * @param immediate
+         * @param velocityX The release velocity of a fling, whose duration then depends on it, or 0
+         * @param minDuration The shortest duration of a fling in milliseconds
+         * @param maxDuration The longest duration of a fling in milliseconds
+         */
+        private void scrollToScreen(int whichScreen, boolean immediate, int velocityX, int minDuration,
+                int maxDuration){
             boolean changingScreens = whichScreen != currentScreen;
+            final boolean jump = jumpModeEnabled && !immediate && velocityX == 0 && getWidth() > 0
+                    && Math.abs(whichScreen - currentScreen) > 1 && whichScreen >= 0 && whichScreen < getScreenCount();
+            cancelJump();
+            if (jump) {
+                // Start from the screen closest to the current position, in case a scroll is running
+                jumpFromScreen = WorkspaceMath.snapScreen(getScrollX(), getWidth());
+                immediate = true;
+            }
 
             nextScreen = whichScreen;
+            if (screenListener != null) {
+                screenListener.onScreenTargeted(this, whichScreen);
+            }
+            populateScreens();
+            schedulePrefetch();
 
             View focusedChild = getFocusedChild();
-            if (focusedChild != null && changingScreens && focusedChild == getChildAt(currentScreen)) {
+            if (focusedChild != null && changingScreens && focusedChild == getScreenAt(currentScreen)) {
                 focusedChild.clearFocus();
             }
 
             final int newX = whichScreen * getWidth();
             final int delta = newX - getScrollX();
-            Log.d("workspace", "newX=" + newX + " scrollX=" + getScrollX() + " delta=" + delta);
-            scroller.startScroll(getScrollX(), 0, delta, 0, immediate ? 0 : Math.abs(delta) * 2);
+            if (WorkspaceTrace.ENABLED) {
+                WorkspaceTrace.record(WorkspaceTrace.EVENT_SCROLL_TO_SCREEN, whichScreen, delta);
+            }
+            if (!immediate) {
+                enableChildrenLayers();
+            }
+            if ((!immediate || jump) && !gestureStats.isActive()) {
+                beginGesture(GestureStats.GESTURE_SCROLL);
+            }
+            if (jump) {
+                jumpScroller.startScroll(0, 0, JUMP_RANGE, 0, JUMP_DURATION);
+            }
+            // Keep the overshoot of a fling across several screens as small as a single screen one
+            mScrollInterpolator.setDistance(velocityX != 0 ? Math.abs(whichScreen - currentScreen) : 0);
+            final int duration;
+            if (immediate) {
+                duration = 0;
+            }
+            else if (velocityX != 0) {
+                duration = WorkspaceMath.flingDuration(delta, velocityX, mScrollInterpolator.getTension(),
+                        minDuration, maxDuration);
+            }
+            else {
+                duration = Math.abs(delta) * 2;
+            }
+            if (springAnimationEnabled && !immediate) {
+                // A running spring keeps its velocity, so a new destination never makes the screens jump. The screens
+                // move opposite to the finger.
+                scroller.forceFinished(true);
+                spring.start(getScrollX(), newX, -velocityX, AnimationUtils.currentAnimationTimeMillis());
+            }
+            else {
+                spring.stop();
+                scroller.startScroll(getScrollX(), 0, delta, 0, duration);
+            }
             invalidate();
         }
 
+        /**
+         * When enabled, the current and neighbouring screens are promoted to hardware layers from the start of a drag or
+         * a scroll until the scroll settles, so that a swipe only composites textures instead of drawing every view.
+         * Without hardware acceleration, the layers are bitmaps. Screens which already have a layer are left alone.
+         * Disabled by default: each layer costs one screen-sized texture.
+         * 
+         * @param enabled
+         */
+        public void setScrollingCacheEnabled(boolean enabled) {
+            scrollingCacheEnabled = enabled;
+            if (!enabled) {
+                clearChildrenLayers();
+            }
+        }
+
+        public boolean isScrollingCacheEnabled() {
+            return scrollingCacheEnabled;
+        }
+
+        private void enableChildrenLayers() {
+            if (!scrollingCacheEnabled || childrenLayersActive) {
+                return;
+            }
+            childrenLayersActive = true;
+            for (int screen = currentScreen - 1; screen <= currentScreen + 1; screen++) {
+                final View v = getScreenAt(screen);
+                if (v != null && v.getLayerType() == LAYER_TYPE_NONE) {
+                    v.setLayerType(LAYER_TYPE_HARDWARE, null);
+                    layerScreens.add(v);
+                }
+            }
+        }
+
+        private void clearChildrenLayers() {
+            if (!childrenLayersActive) {
+                return;
+            }
+            childrenLayersActive = false;
+            // Removing the layer also releases its texture
+            for (int i = layerScreens.size() - 1; i >= 0; i--) {
+                layerScreens.get(i).setLayerType(LAYER_TYPE_NONE, null);
+            }
+            layerScreens.clear();
+        }
+
+        /**
+         * When enabled, scrolling to a screen more than one screen away, with scrollToScreen or setDisplayedChild, no
+         * longer scrolls through every screen in between: the destination slides over the current screen in a fixed
+         * time, and only those two screens are drawn. Disabled by default.
+         * 
+         * @param enabled
+         */
+        public void setJumpModeEnabled(boolean enabled) {
+            jumpModeEnabled = enabled;
+            if (!enabled) {
+                finishJump();
+            }
+        }
+
+        public boolean isJumpModeEnabled() {
+            return jumpModeEnabled;
+        }
+
+        /**
+         * Land a running jump on its destination at once
+         */
+        private void finishJump() {
+            if (jumpFromScreen != INVALID_SCREEN) {
+                jumpScroller.abortAnimation();
+                invalidate();
+            }
+        }
+
+        /**
+         * Forget a running jump, for when the workspace is moved somewhere else
+         */
+        private void cancelJump() {
+            if (jumpFromScreen != INVALID_SCREEN) {
+                jumpScroller.abortAnimation();
+                jumpFromScreen = INVALID_SCREEN;
+                invalidate();
+            }
+        }
+
+        /**
+         * Let a drag follow the expected position of the finger instead of its latest sample, to hide the latency
+         * between the touch and the frame showing it. The velocity is estimated from every sample of the drag, including
+         * the historical samples batched into each move event, and the lead is capped at the touch slop. Disabled by
+         * default; about one frame, 16 ms, is a good value.
+         * 
+         * @param millis How far ahead to predict, 0 to disable
+         */
+        public void setTouchPredictionMillis(int millis) {
+            touchPredictionMillis = Math.max(0, millis);
+        }
+
+        public int getTouchPredictionMillis() {
+            return touchPredictionMillis;
+        }
+
+        /**
+         * When enabled, scrolls and flings are animated by a damped spring instead of the scroller and its overshoot
+         * curve. The spring starts with the velocity of the fling and keeps its velocity when the destination changes
+         * in flight. It stops requesting frames as soon as it settles and a touch stops it where it is. Disabled by
+         * default.
+         * 
+         * @param enabled
+         */
+        public void setSpringAnimationEnabled(boolean enabled) {
+            springAnimationEnabled = enabled;
+        }
+
+        public boolean isSpringAnimationEnabled() {
+            return springAnimationEnabled;
+        }
+
+        /**
+         * Set the physics of the spring animations
+         * 
+         * @param stiffness In 1/s^2, higher is faster. The default is 170.
+         * @param dampingRatio 1 for no overshoot, lower values overshoot more. The default is 0.8.
+         */
+        public void setSpringPhysics(float stiffness, float dampingRatio) {
+            spring.setPhysics(stiffness, dampingRatio);
+        }
+
+        /**
+         * When enabled, the release velocity of a swipe is projected through a constant deceleration to choose the
+         * screen it lands on, possibly several screens away, and the animation lasts as long as that velocity takes to
+         * cover the distance. Disabled by default: a fling then moves one screen at most.
+         * 
+         * @param enabled
+         */
+        public void setProjectedFlingEnabled(boolean enabled) {
+            projectedFlingEnabled = enabled;
+        }
+
+        public boolean isProjectedFlingEnabled() {
+            return projectedFlingEnabled;
+        }
+
         public void scrollToScreenImmediate(int whichScreen){
             scrollToScreen(whichScreen, true);
         }
@@ -698,6 +1890,7 @@ import android.widget.Scroller;
             super.onRestoreInstanceState(savedState.getSuperState());
             if (savedState.currentScreen != -1) {
                 currentScreen = savedState.currentScreen;
+                populateScreens();
             }
         }
 
@@ -705,57 +1898,571 @@ import android.widget.Scroller;
          * Scroll to the left right screen
          */
         public void scrollLeft() {
-            if (nextScreen == INVALID_SCREEN && currentScreen > 0 && scroller.isFinished()) {
-                scrollToScreen(currentScreen - 1);
-            }
+            navigate(-1, true);
         }
 
         /**
          * Scroll to the next right screen
          */
         public void scrollRight() {
-            if (nextScreen == INVALID_SCREEN && currentScreen < getChildCount() - 1 && scroller.isFinished()) {
-                scrollToScreen(currentScreen + 1);
-            }
+            navigate(1, true);
         }
 
         /**
-         * Return the screen's index where a view has been added to.
+         * Return the index of the screen containing a view, at any depth, or -1 if the view is not in a screen. When an
+         * adapter is used, only the attached screens are searched. At most 32 ancestors are walked up.
          * 
          * @param v
          * @return
          */
         public int getScreenForView(View v) {
-            int result = -1;
-            if (v != null) {
-                ViewParent vp = v.getParent();
-                int count = getChildCount();
-                for (int i = 0; i < count; i++) {
-                    if (vp == getChildAt(i)) {
-                        return i;
-                    }
+            if (v == null) {
+                return -1;
+            }
+            // Walk up to the child of the workspace, a bounded number of levels
+            View child = v;
+            ViewParent ancestor = v.getParent();
+            for (int depth = 0; depth < MAX_ANCESTOR_DEPTH && ancestor instanceof View; depth++) {
+                if (ancestor == this) {
+                    return getScreenOfChild(child);
                 }
+                child = (View) ancestor;
+                ancestor = child.getParent();
             }
-            return result;
+            return -1;
         }
 
         /**
-         * Return a view instance according to the tag parameter or null if the view could not be found
+         * Return a view instance according to the tag parameter or null if the view could not be found. When an adapter
+         * is used, only the attached screens are searched. The tags are indexed as the screens are added, and a tag set
+         * later is found by scanning the screens again.
          * 
          * @param tag
          * @return
          */
         public View getViewForTag(Object tag) {
-            int screenCount = getChildCount();
-            for (int screen = 0; screen < screenCount; screen++) {
-                View child = getChildAt(screen);
-                if (child.getTag() == tag) {
-                    return child;
+            if (tag == null) {
+                return null;
+            }
+            View screen = tagScreens.get(tag);
+            if (screen == null || screen.getTag() != tag) {
+                // The tag may have been set or changed since its screen was added
+                indexTags();
+                screen = tagScreens.get(tag);
+            }
+            return screen;
+        }
+
+        /**
+         * Index the screens by tag, the first screen carrying a tag wins
+         */
+        private void indexTags() {
+            tagScreens.clear();
+            final int count = getChildCount();
+            for (int i = 0; i < count; i++) {
+                indexTag(getChildAt(i));
+            }
+        }
+
+        /**
+         * Index the screen of a child by its tag, unless another screen already carries it
+         * 
+         * @param child
+         */
+        private void indexTag(View child) {
+            // The tag is set on the created screen, not on its placeholder
+            final View screen = child instanceof LazyScreen ? ((LazyScreen) child).getScreen() : child;
+            if (screen != null && screen.getTag() != null && !tagScreens.containsKey(screen.getTag())) {
+                tagScreens.put(screen.getTag(), screen);
+            }
+        }
+
+        /**
+         * Forget the tag of the screen of a child
+         * 
+         * @param child
+         */
+        private void unindexTag(View child) {
+            final View screen = child instanceof LazyScreen ? ((LazyScreen) child).getScreen() : child;
+            if (screen != null) {
+                tagScreens.values().remove(screen);
+            }
+        }
+
+        @Override
+        public void onViewAdded(View child) {
+            super.onViewAdded(child);
+            indexTag(child);
+        }
+
+        @Override
+        public void onViewRemoved(View child) {
+            super.onViewRemoved(child);
+            unindexTag(child);
+        }
+
+        /**
+         * Create the screens lazily. The workspace gets count empty placeholders, and the screens are created by the
+         * factory when the UI thread is idle, starting with the current screen then the ones within the prefetch
+         * distance of the current, next and visible screens. A screen reached before it has been created shows its empty
+         * placeholder until then. Any screen previously added is removed.
+         * 
+         * @param factory
+         * @param count The number of screens
+         */
+        public void setScreenFactory(ScreenFactory factory, int count) {
+            removeAllViews();
+            screenFactory = factory;
+            if (factory != null) {
+                for (int i = 0; i < count; i++) {
+                    addView(new LazyScreen(getContext(), i));
+                }
+            }
+            schedulePrefetch();
+        }
+
+        /**
+         * Set the number of screens created ahead on each side of the current, next and visible screens when a factory
+         * is used
+         * 
+         * @param distance
+         */
+        public void setPrefetchDistance(int distance) {
+            prefetchDistance = Math.max(0, distance);
+            schedulePrefetch();
+        }
+
+        private void schedulePrefetch() {
+            if (prefetchScheduled || nextLazyScreen() == null) {
+                return;
+            }
+            prefetchScheduled = true;
+            Looper.myQueue().addIdleHandler(prefetcher);
+        }
+
+        /**
+         * Create one screen each time the UI thread gets idle, so that a frame never waits for more than one screen
+         */
+        private final MessageQueue.IdleHandler prefetcher = new MessageQueue.IdleHandler() {
+            public boolean queueIdle() {
+                final LazyScreen placeholder = nextLazyScreen();
+                if (placeholder != null) {
+                    final View screen = screenFactory.createScreen(placeholder.getPosition(), placeholder);
+                    if (screenLongClickListener != null) {
+                        screen.setOnLongClickListener(screenLongClickListener);
+                    }
+                    placeholder.addView(screen);
+                    indexTag(placeholder);
+                }
+                prefetchScheduled = nextLazyScreen() != null;
+                return prefetchScheduled;
+            }
+        };
+
+        /**
+         * Return the placeholder to fill first: the closest to the current screen, then to the next and the visible
+         * screens, or null if every screen within the prefetch distance is created
+         */
+        private LazyScreen nextLazyScreen() {
+            if (screenFactory == null) {
+                return null;
+            }
+            final int scrollScreen = getWidth() > 0 ? getScrollX() / getWidth() : currentScreen;
+            for (int distance = 0; distance <= prefetchDistance; distance++) {
+                LazyScreen placeholder = emptyLazyScreen(currentScreen, distance);
+                if (placeholder == null && nextScreen != INVALID_SCREEN) {
+                    placeholder = emptyLazyScreen(nextScreen, distance);
+                }
+                if (placeholder == null) {
+                    placeholder = emptyLazyScreen(scrollScreen, distance);
                 }
+                if (placeholder != null) {
+                    return placeholder;
+                }
+            }
+            return null;
+        }
+
+        private LazyScreen emptyLazyScreen(int center, int distance) {
+            View child = getChildAt(center - distance);
+            if (child instanceof LazyScreen && ((LazyScreen) child).getScreen() == null) {
+                return (LazyScreen) child;
+            }
+            child = getChildAt(center + distance);
+            if (child instanceof LazyScreen && ((LazyScreen) child).getScreen() == null) {
+                return (LazyScreen) child;
             }
             return null;
         }
 
+        // Trims the workspace while it is attached, the WallpaperCache trims itself
+        private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            public void onLowMemory() {
+                trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+        };
+
+        @Override
+        protected void onAttachedToWindow() {
+            super.onAttachedToWindow();
+            getContext().getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+            // Bring back the screens released while detached
+            populatedCurrentScreen = INVALID_SCREEN;
+            populateScreens();
+            schedulePrefetch();
+        }
+
+        @Override
+        protected void onDetachedFromWindow() {
+            super.onDetachedFromWindow();
+            getContext().getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
+            if (prefetchScheduled) {
+                Looper.myQueue().removeIdleHandler(prefetcher);
+                prefetchScheduled = false;
+            }
+            releaseMemory();
+            if (tiledWallpaper != null) {
+                tiledWallpaper.close();
+            }
+        }
+
+        /**
+         * Release memory according to a trim level of ComponentCallbacks2.onTrimMemory, called by the workspace itself
+         * while it is attached to a window. Once the UI is hidden, the workspace releases everything it can rebuild:
+         * the fitted wallpaper, the decoded tiles of a tiled wallpaper, the overview thumbnails, the loaded snapshots,
+         * the screen layers, the velocity tracker, the recycled adapter screens and, if enabled, the offscreen screens.
+         * While the UI is still visible and memory runs low, only what is not shown is released. Only the bitmaps of
+         * this workspace are counted: the {@link WallpaperCache} is trimmed once, through its own callbacks.
+         * Everything is rebuilt when needed again.
+         * 
+         * @param level One of the ComponentCallbacks2.TRIM_MEMORY_ constants
+         * @return The number of bitmap bytes released
+         */
+        public int trimMemory(int level) {
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+                return releaseMemory();
+            }
+            if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                    || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+                final int released = releaseHiddenMemory();
+                stats.bytesReleased += released;
+                return released;
+            }
+            return 0;
+        }
+
+        /**
+         * Release every resource the workspace can rebuild, as when it is detached from its window
+         * 
+         * @return The number of bitmap bytes released
+         */
+        private int releaseMemory() {
+            int released = releaseHiddenMemory();
+            if (wallpaper != null && wallpaperSource != null) {
+                // The cache or the application may still hold the fitted wallpaper, which then comes back at once
+                if (wallpaperLoader == null && !isWallpaperCached() && !wallpaperSource.holds(wallpaper)) {
+                    released += wallpaper.getByteCount();
+                }
+                wallpaper = null;
+                wallpaperFitWidth = 0;
+                wallpaperFitHeight = 0;
+            }
+            if (tiledWallpaper != null) {
+                released += tiledWallpaper.trim();
+            }
+            if (thumbnails != null) {
+                released += thumbnails.release();
+            }
+            if (snapshots != null) {
+                released += snapshots.releaseAll();
+            }
+            clearChildrenLayers();
+            if (releaseOffscreenScreens) {
+                releaseOffscreenScreens();
+            }
+            stats.bytesReleased += released;
+            return released;
+        }
+
+        /**
+         * @return Whether the fitted wallpaper is shown and still held by the cache
+         */
+        private boolean isWallpaperCached() {
+            return wallpaper != null && wallpaperSource != null
+                    && WallpaperCache.get(wallpaperSource.getCacheKey(), wallpaperFitWidth,
+                            wallpaperFitHeight) == wallpaper;
+        }
+
+        /**
+         * Release what is not shown while the workspace is visible
+         * 
+         * @return The number of bitmap bytes released
+         */
+        private int releaseHiddenMemory() {
+            int released = 0;
+            if (thumbnails != null && !overviewMode) {
+                released += thumbnails.release();
+            }
+            if (mVelocityTracker != null && touchState == TOUCH_STATE_REST) {
+                mVelocityTracker.recycle();
+                mVelocityTracker = null;
+            }
+            if (recycledScreens != null) {
+                recycledScreens.clear();
+            }
+            return released;
+        }
+
+        /**
+         * Drop the views of the screens other than the current one: the adapter screens are detached and not kept for
+         * recycling, and the screens created by a factory go back to empty placeholders. They are created again when
+         * they come close to the current screen.
+         */
+        private void releaseOffscreenScreens() {
+            if (adapter != null) {
+                for (int i = attachedScreens.size() - 1; i >= 0; i--) {
+                    if (attachedScreens.keyAt(i) != currentScreen) {
+                        detachScreenAt(i);
+                    }
+                }
+                recycledScreens.clear();
+                populatedCurrentScreen = INVALID_SCREEN;
+            }
+            else if (screenFactory != null) {
+                final int count = getChildCount();
+                for (int i = 0; i < count; i++) {
+                    final View child = getChildAt(i);
+                    if (i != currentScreen && child instanceof LazyScreen && ((LazyScreen) child).getScreen() != null) {
+                        unindexTag(child);
+                        ((LazyScreen) child).removeAllViews();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Also release the screens away from the current one when the workspace is detached or hidden. Their views are
+         * dropped, so they must not hold state which is not restored when they are created again. Only screens
+         * provided by an adapter or a factory can be released. Disabled by default.
+         * 
+         * @param enabled
+         */
+        public void setReleaseOffscreenScreens(boolean enabled) {
+            releaseOffscreenScreens = enabled;
+        }
+
+        /**
+         * Return the number of screens, either the number of children or the adapter's count
+         * 
+         * @return
+         */
+        public int getScreenCount() {
+            return adapter != null ? adapter.getCount() : getChildCount();
+        }
+
+        /**
+         * Return the view of a screen or null if this screen is not attached
+         * 
+         * @param screen The logical screen index
+         * @return
+         */
+        public View getScreenAt(int screen) {
+            return adapter != null ? attachedScreens.get(screen) : getChildAt(screen);
+        }
+
+        /**
+         * Return the logical screen index of a child or -1 if it is not a screen of this workspace
+         */
+        private int getScreenOfChild(View child) {
+            if (adapter != null) {
+                final int index = attachedScreens.indexOfValue(child);
+                return index >= 0 ? attachedScreens.keyAt(index) : -1;
+            }
+            return indexOfChild(child);
+        }
+
+        /**
+         * Set the adapter providing the screens. Only the screens around the current one are attached, the others are
+         * recycled. Passing null detaches every adapter screen.
+         * 
+         * @param theAdapter
+         */
+        public void setAdapter(WorkspaceAdapter theAdapter) {
+            if (adapter != null) {
+                detachScreens(0, -1);
+            }
+            adapter = theAdapter;
+            screensVersion++;
+            attachedScreens = adapter != null ? new SparseArray<View>() : null;
+            recycledScreens = adapter != null ? new ArrayList<View>() : null;
+            populatedCurrentScreen = INVALID_SCREEN;
+            if (adapter != null) {
+                currentScreen = Math.max(0, Math.min(currentScreen, adapter.getCount() - 1));
+                populateScreens();
+            }
+            requestLayout();
+            invalidate();
+        }
+
+        public WorkspaceAdapter getAdapter() {
+            return adapter;
+        }
+
+        /**
+         * Set the number of screens kept attached on each side of the current screen when an adapter is used
+         * 
+         * @param limit
+         */
+        public void setOffscreenScreenLimit(int limit) {
+            offscreenScreenLimit = Math.max(1, limit);
+            populatedCurrentScreen = INVALID_SCREEN;
+            populateScreens();
+        }
+
+        /**
+         * Rebind the attached screens after the adapter's content or count has changed
+         */
+        public void notifyScreensChanged() {
+            if (adapter == null) {
+                return;
+            }
+            final int count = adapter.getCount();
+            screensVersion++;
+            detachScreens(count, Integer.MAX_VALUE);
+            for (int i = 0; i < attachedScreens.size(); i++) {
+                adapter.bindScreen(attachedScreens.valueAt(i), attachedScreens.keyAt(i));
+            }
+            currentScreen = Math.max(0, Math.min(currentScreen, count - 1));
+            populatedCurrentScreen = INVALID_SCREEN;
+            populateScreens();
+            requestLayout();
+            invalidate();
+        }
+
+        /**
+         * Attach the screens around the current, next and visible screens and recycle the others. Does nothing when no
+         * adapter is used or when none of these screens changed since the last call.
+         */
+        private void populateScreens() {
+            if (adapter == null) {
+                return;
+            }
+            final int width = getWidth();
+            final int scrollScreen = width > 0 ? getScrollX() / width : currentScreen;
+            if (currentScreen == populatedCurrentScreen && nextScreen == populatedNextScreen
+                    && scrollScreen == populatedScrollScreen) {
+                return;
+            }
+            populatedCurrentScreen = currentScreen;
+            populatedNextScreen = nextScreen;
+            populatedScrollScreen = scrollScreen;
+
+            // Recycle the screens out of the window first so that they can be bound again
+            for (int i = attachedScreens.size() - 1; i >= 0; i--) {
+                final int position = attachedScreens.keyAt(i);
+                if (!isInScreenWindow(position, scrollScreen)) {
+                    detachScreenAt(i);
+                }
+            }
+            final int count = adapter.getCount();
+            attachScreens(currentScreen, count);
+            attachScreens(scrollScreen, count);
+            if (nextScreen != INVALID_SCREEN) {
+                attachScreens(nextScreen, count);
+            }
+            invalidate();
+        }
+
+        private boolean isInScreenWindow(int position, int scrollScreen) {
+            return Math.abs(position - currentScreen) <= offscreenScreenLimit
+                    || Math.abs(position - scrollScreen) <= offscreenScreenLimit
+                    || (nextScreen != INVALID_SCREEN && Math.abs(position - nextScreen) <= offscreenScreenLimit);
+        }
+
+        private void attachScreens(int center, int count) {
+            final int last = Math.min(count - 1, center + offscreenScreenLimit);
+            for (int position = Math.max(0, center - offscreenScreenLimit); position <= last; position++) {
+                if (attachedScreens.get(position) == null) {
+                    attachScreen(position);
+                }
+            }
+        }
+
+        /**
+         * Bind a recycled (or new) view to a screen and attach it. The view is measured and laid out right away if the
+         * workspace has already been measured, so that the rest of the workspace does not need a new layout.
+         */
+        private void attachScreen(int position) {
+            final View screen = recycledScreens.isEmpty() ? adapter.createScreen(this) : recycledScreens
+                    .remove(recycledScreens.size() - 1);
+            adapter.bindScreen(screen, position);
+            if (screenLongClickListener != null) {
+                screen.setOnLongClickListener(screenLongClickListener);
+            }
+            attachedScreens.put(position, screen);
+            LayoutParams params = screen.getLayoutParams();
+            if (params == null) {
+                params = generateDefaultLayoutParams();
+            }
+            addViewInLayout(screen, -1, params, true);
+            if (childWidthMeasureSpec != 0 && getWidth() > 0) {
+                screen.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+                stats.childMeasures++;
+                layoutScreen(screen, position, getWidth());
+            }
+            else {
+                requestLayout();
+            }
+        }
+
+        private void detachScreenAt(int index) {
+            final int position = attachedScreens.keyAt(index);
+            final View screen = attachedScreens.valueAt(index);
+            attachedScreens.removeAt(index);
+            if (screen.hasFocus()) {
+                screen.clearFocus();
+            }
+            if (layerScreens.remove(screen)) {
+                screen.setLayerType(LAYER_TYPE_NONE, null);
+            }
+            removeViewInLayout(screen);
+            adapter.recycle(screen, position);
+            recycledScreens.add(screen);
+        }
+
+        /**
+         * Detach the attached screens whose logical index is in [from, to], or all of them if to is lower than from
+         */
+        private void detachScreens(int from, int to) {
+            for (int i = attachedScreens.size() - 1; i >= 0; i--) {
+                final int position = attachedScreens.keyAt(i);
+                if (to < from || (position >= from && position <= to)) {
+                    detachScreenAt(i);
+                }
+            }
+        }
+
+        private void layoutScreen(View screen, int position, int width) {
+            final int screenLeft = position * width;
+            screen.layout(screenLeft, 0, screenLeft + screen.getMeasuredWidth(), screen.getMeasuredHeight());
+            stats.childLayouts++;
+        }
+
+        /**
+         * Return whether a screen is not already laid out at the given position with its measured size
+         */
+        private static boolean needsLayout(View child, int childLeft) {
+            return child.isLayoutRequested() || child.getLeft() != childLeft || child.getTop() != 0
+                    || child.getWidth() != child.getMeasuredWidth() || child.getHeight() != child.getMeasuredHeight();
+        }
+
         /**
          * Unlocks the SlidingDrawer so that touch events are processed.
          * 
@@ -786,7 +2493,10 @@ import android.widget.Scroller;
          */
         public void moveToDefaultScreen() {
             scrollToScreen(defaultScreen);
-            getChildAt(defaultScreen).requestFocus();
+            final View screen = getScreenAt(defaultScreen);
+            if (screen != null) {
+                screen.requestFocus();
+            }
         }
 
         // ========================= INNER CLASSES ==============================
@@ -846,14 +2556,95 @@ import android.widget.Scroller;
 
         public void setDisplayedChild(int i){
             //    setCurrentScreen(i);
-            scrollToScreen(i);
-            getChildAt(i).requestFocus();
+            navigate(i, false);
+            final View screen = getScreenAt(i);
+            if (screen != null) {
+                screen.requestFocus();
+            }
         }
 
+        /**
+         * Return the counters of measure, layout and draw passes of this workspace
+         * 
+         * @return
+         */
+        public WorkspaceStats getStats() {
+            return stats;
+        }
+
+        /**
+         * Set the listener receiving the draw timings of each swipe, fling and scroll, or null to stop recording them.
+         * Recording is off by default.
+         * 
+         * @param listener
+         */
+        public void setGestureStatsListener(GestureStatsListener listener) {
+            gestureStatsListener = listener;
+            if (listener == null) {
+                gestureStats.clear();
+            }
+        }
+
+        /**
+         * Start recording a gesture, reporting the current one first
+         */
+        private void beginGesture(int type) {
+            if (gestureStatsListener == null) {
+                return;
+            }
+            endGesture();
+            gestureStats.begin(type, System.nanoTime());
+        }
+
+        /**
+         * Note that the gesture being recorded, if any, waits for a frame
+         */
+        private void requestGestureFrame() {
+            if (gestureStatsListener != null && gestureStats.isActive()) {
+                gestureStats.onFrameRequested(System.nanoTime());
+            }
+        }
+
+        /**
+         * Report the gesture being recorded, if any
+         */
+        private void endGesture() {
+            if (gestureStatsListener == null || !gestureStats.isActive()) {
+                return;
+            }
+            gestureStats.end(System.nanoTime());
+            gestureStatsListener.onGestureStats(this, gestureStats);
+            gestureStats.clear();
+        }
+
+        /**
+         * Set the listener told when a drag moves toward a screen, when a fling or a scroll commits to a screen and when
+         * the workspace settles, or null to remove it
+         * 
+         * @param listener
+         */
+        public void setScreenChangeListener(ScreenChangeListener listener) {
+            screenListener = listener;
+        }
+
+        /**
+         * @deprecated The listener is called on every layout pass, use
+         *             {@link #setWorkspaceLayoutListener(WorkspaceLayoutListener)}
+         */
+        @Deprecated
         public void setOnLoadListener(OnLoadListener load){
             this.load = load;
         }
 
+        /**
+         * Set the listener notified of the first layout, of the size changes and of the screen set changes
+         * 
+         * @param listener
+         */
+        public void setWorkspaceLayoutListener(WorkspaceLayoutListener listener) {
+            layoutListener = listener;
+        }
+
         public void flipLeft(){
             scrollLeft();
         }
@@ -879,12 +2670,13 @@ import android.widget.Scroller;
 
             if (bitmapWidth < width || bitmapHeight < height) {
                 // Normally should get the window_background color of the context
-                int color = Integer.valueOf("FF191919", 16);
-                Bitmap centered = Bitmap.createBitmap(bitmapWidth < width ? width : bitmapWidth, bitmapHeight < height ? height
-                        : bitmapHeight, Bitmap.Config.RGB_565);
+                int color = 0xFF191919;
+                Bitmap centered = Bitmap.createBitmap(WorkspaceMath.fitSize(bitmapWidth, width),
+                        WorkspaceMath.fitSize(bitmapHeight, height), Bitmap.Config.RGB_565);
                 Canvas canvas = new Canvas(centered);
                 canvas.drawColor(color);
-                canvas.drawBitmap(bitmap, (width - bitmapWidth) / 2.0f, (height - bitmapHeight) / 2.0f, null);
+                canvas.drawBitmap(bitmap, WorkspaceMath.fitOffset(bitmapWidth, width),
+                        WorkspaceMath.fitOffset(bitmapHeight, height), null);
                 bitmap = centered;
             }
             return bitmap;